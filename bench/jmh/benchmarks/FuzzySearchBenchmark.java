@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark for {@code TaskManager.fuzzySearch}. Its cost depends on the number of distinct
+ * words more than on the number of tasks, so the store is filled from a generated vocabulary of
+ * each size, and every query is a word of that vocabulary with a typo. Run it with
+ * {@code gradle jmh -PjmhArgs="FuzzySearchBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dfile.encoding=UTF-8"})
+public class FuzzySearchBenchmark {
+    @Param("100000")
+    private int size;
+
+    @Param({"1000", "20000", "100000"})
+    private int vocabulary;
+
+    @Param("42")
+    private long seed;
+
+    private TaskScenarios scenarios;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scenarios = TaskScenarios.create();
+        scenarios.setUpVocabulary(size, vocabulary, seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        scenarios.tearDown();
+    }
+
+    @Benchmark
+    public int fuzzySearch() {
+        return scenarios.fuzzySearch();
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the hot paths of {@code TaskManager} and {@code JsonTaskManager}.
+ * Every benchmark runs at each store size in a fresh JVM, so {@link #createTask()} grows
+ * a store of its own. Run them with {@code gradle jmh}, which adds the GC profiler
+ * ({@code -prof gc}) to report the bytes allocated per operation and the GC activity;
+ * further JMH options can be passed as {@code -PjmhArgs="..."}, for example
+ * {@code -PjmhArgs="-p size=1000 searchTasks"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dfile.encoding=UTF-8"})
+public class TaskManagerBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param("42")
+    private long seed;
+
+    private TaskScenarios scenarios;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        scenarios = TaskScenarios.create();
+        scenarios.setUp(size, seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        scenarios.tearDown();
+    }
+
+    @Benchmark
+    public int getTaskById() {
+        return scenarios.getTaskById();
+    }
+
+    @Benchmark
+    public int searchTasks() {
+        return scenarios.searchTasks();
+    }
+
+    @Benchmark
+    public int searchTasksByFields() {
+        return scenarios.searchTasksByFields();
+    }
+
+    @Benchmark
+    public int sortTasks() {
+        return scenarios.sortTasks();
+    }
+
+    @Benchmark
+    public boolean saveTasks() {
+        return scenarios.saveTasks();
+    }
+
+    @Benchmark
+    public int loadTasks() {
+        return scenarios.loadTasks();
+    }
+
+    @Benchmark
+    public int createTask() {
+        return scenarios.createTask();
+    }
+}
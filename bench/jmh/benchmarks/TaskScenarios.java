@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.io.IOException;
+
+/**
+ * The operations measured by {@link TaskManagerBenchmark} and {@link FuzzySearchBenchmark}.
+ * JMH only accepts benchmarks in a named package, and a class in a named package cannot refer to
+ * {@code TaskManager} and the other classes of the default package, so the benchmark reaches them
+ * through this interface. The implementation, {@code TaskBenchmarkScenarios}, lives next to them
+ * and is loaded by name once per trial, so the measured calls are plain interface calls.
+ * Every operation returns a value derived from its result, for JMH to consume.
+ */
+public interface TaskScenarios {
+
+    /**
+     * Loads the default-package implementation.
+     *
+     * @return A new, not yet set up instance
+     */
+    static TaskScenarios create() {
+        try {
+            return (TaskScenarios) Class.forName("TaskBenchmarkScenarios").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("TaskBenchmarkScenarios is not on the class path", e);
+        }
+    }
+
+    /**
+     * Fills a task manager with generated tasks and saves them to a temporary file
+     * for the save and load operations.
+     *
+     * @param size The number of tasks
+     * @param seed The seed for the generated tasks and the operation arguments
+     * @throws IOException If the temporary file cannot be written
+     */
+    void setUp(int size, long seed) throws IOException;
+
+    /**
+     * Fills a task manager with tasks whose texts are drawn from a generated vocabulary,
+     * for {@link #fuzzySearch()}. Needs no temporary file.
+     *
+     * @param size       The number of tasks
+     * @param vocabulary The number of distinct words
+     * @param seed       The seed for the generated words, tasks and queries
+     */
+    void setUpVocabulary(int size, int vocabulary, long seed);
+
+    /**
+     * Deletes the temporary file.
+     *
+     * @throws IOException If the file cannot be deleted
+     */
+    void tearDown() throws IOException;
+
+    int getTaskById();
+
+    int searchTasks();
+
+    int searchTasksByFields();
+
+    int sortTasks();
+
+    boolean saveTasks();
+
+    int loadTasks();
+
+    int createTask();
+
+    int fuzzySearch();
+}
@@ -0,0 +1,94 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import benchmarks.TaskScenarios;
+
+/**
+ * The scenarios of the JMH benchmarks {@code benchmarks.TaskManagerBenchmark} and
+ * {@code benchmarks.FuzzySearchBenchmark}, run against a store filled by {@link TaskDataGenerator}. The arguments of every call (IDs, keywords, new tasks)
+ * come from the same seeded generator, so two runs measure the same sequence of calls.
+ */
+public class TaskBenchmarkScenarios implements TaskScenarios {
+    private TaskDataGenerator generator;
+    private TaskManager taskManager;
+    private JsonTaskManager jsonTaskManager;
+    private List<Task> tasks;
+    private List<String> vocabulary;
+    private File file;
+    private int size;
+
+    @Override
+    public void setUp(int size, long seed) throws IOException {
+        this.size = size;
+        this.generator = new TaskDataGenerator(seed);
+        this.taskManager = generator.populate(size);
+        this.jsonTaskManager = new JsonTaskManager();
+        this.tasks = taskManager.getAllTasks();
+        this.file = File.createTempFile("tasks-bench-", ".json");
+        file.deleteOnExit();
+        if (!jsonTaskManager.saveTasks(tasks, file.getPath())) {
+            throw new IOException("Could not write " + file.getPath());
+        }
+    }
+
+    @Override
+    public void setUpVocabulary(int size, int vocabulary, long seed) {
+        this.size = size;
+        this.generator = new TaskDataGenerator(seed);
+        this.vocabulary = generator.vocabulary(vocabulary);
+        this.taskManager = generator.populate(size, this.vocabulary);
+        // Build the word index outside the measurement
+        taskManager.fuzzySearch(this.vocabulary.get(0), 1);
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        if (file != null && !file.delete()) {
+            throw new IOException("Could not delete " + file.getPath());
+        }
+    }
+
+    @Override
+    public int getTaskById() {
+        Task task = taskManager.getTaskById(1 + generator.nextInt(size));
+        return task != null ? task.getId() : 0;
+    }
+
+    @Override
+    public int searchTasks() {
+        return taskManager.searchTasks(generator.nextKeyword()).size();
+    }
+
+    @Override
+    public int searchTasksByFields() {
+        return taskManager.searchTasksByFields(generator.nextKeyword(), generator.nextStatus(),
+                generator.nextPriority()).size();
+    }
+
+    @Override
+    public int sortTasks() {
+        return taskManager.sortTasks("deadline", true).size();
+    }
+
+    @Override
+    public boolean saveTasks() {
+        return jsonTaskManager.saveTasks(tasks, file.getPath());
+    }
+
+    @Override
+    public int loadTasks() {
+        return jsonTaskManager.loadTasks(file.getPath()).size();
+    }
+
+    @Override
+    public int createTask() {
+        return taskManager.createTask(generator.nextTitle(), generator.nextDescription(),
+                generator.nextDeadline(), generator.nextPriority()).getId();
+    }
+
+    @Override
+    public int fuzzySearch() {
+        return taskManager.fuzzySearch(generator.nextMisspelledWord(vocabulary), 20).size();
+    }
+}
@@ -0,0 +1,261 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic tasks with realistic Ukrainian text.
+ * The same seed always produces the same tasks, so benchmark runs are comparable.
+ */
+public class TaskDataGenerator {
+    private static final String[] VERBS = {
+            "Купити", "Піти", "Зателефонувати", "Підготувати", "Перевірити", "Написати",
+            "Оплатити", "Прибрати", "Забрати", "Відправити", "Замовити", "Полагодити",
+            "Записатися", "Прочитати", "Оновити", "Зустрітися"
+    };
+    private static final String[] OBJECTS = {
+            "хліб", "молоко", "звіт", "рахунки", "квартиру", "посилку", "лікаря", "презентацію",
+            "документи", "продукти", "ліки", "квитки", "машину", "книгу", "резюме", "подарунок",
+            "комунальні послуги", "договір", "білизну", "сантехніка"
+    };
+    private static final String[] PLACES = {
+            "в магазині", "на роботі", "вдома", "в банку", "на пошті", "в аптеці", "у Києві",
+            "у Львові", "біля метро", "в офісі", "на ринку", "в супермаркеті"
+    };
+    private static final String[] FILLERS = {
+            "не забути", "терміново", "до вечора", "після обіду", "разом з мамою", "якщо встигну",
+            "обов'язково", "хліб, воду, курку, чіпси, суші", "уточнити ціну", "взяти чек",
+            "перевірити знижки", "зранку", "у вихідні", "до п'ятниці"
+    };
+
+    private static final String CONSONANTS = "бвгджзклмнпрстхцчшщ";
+    private static final String VOWELS = "аеиіоуяю";
+
+    private final Random random;
+    private final LocalDateTime baseDate;
+
+    /**
+     * Creates a generator with the specified seed.
+     *
+     * @param seed The seed of the random number generator
+     */
+    public TaskDataGenerator(long seed) {
+        this.random = new Random(seed);
+        this.baseDate = LocalDateTime.of(2025, 1, 1, 9, 0);
+    }
+
+    /**
+     * Returns a random title such as "Купити хліб".
+     *
+     * @return A task title
+     */
+    public String nextTitle() {
+        return pick(VERBS) + " " + pick(OBJECTS);
+    }
+
+    /**
+     * Returns a random description of 4 to 16 words.
+     *
+     * @return A task description
+     */
+    public String nextDescription() {
+        StringBuilder description = new StringBuilder();
+        int parts = 2 + random.nextInt(5);
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                description.append(i % 2 == 0 ? ", " : " ");
+            }
+            switch (random.nextInt(3)) {
+                case 0:
+                    description.append(pick(VERBS).toLowerCase()).append(' ').append(pick(OBJECTS));
+                    break;
+                case 1:
+                    description.append(pick(PLACES));
+                    break;
+                default:
+                    description.append(pick(FILLERS));
+                    break;
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Returns a random deadline within a year of the base date, on a five-minute boundary.
+     *
+     * @return A deadline
+     */
+    public LocalDateTime nextDeadline() {
+        return baseDate.plusMinutes(5L * random.nextInt(365 * 24 * 12));
+    }
+
+    /**
+     * Returns a random priority; MEDIUM is the most common.
+     *
+     * @return A priority
+     */
+    public Task.Priority nextPriority() {
+        int value = random.nextInt(10);
+        return value < 3 ? Task.Priority.LOW : value < 8 ? Task.Priority.MEDIUM : Task.Priority.HIGH;
+    }
+
+    /**
+     * Returns a random status; about half of the tasks are done.
+     *
+     * @return A status
+     */
+    public Task.Status nextStatus() {
+        int value = random.nextInt(10);
+        return value < 3 ? Task.Status.TODO : value < 5 ? Task.Status.IN_PROGRESS : Task.Status.DONE;
+    }
+
+    /**
+     * Returns a random word that appears in generated titles or descriptions, for searches.
+     *
+     * @return A search keyword
+     */
+    public String nextKeyword() {
+        return random.nextBoolean() ? pick(OBJECTS) : pick(VERBS).toLowerCase();
+    }
+
+    /**
+     * Returns a random int in [0, bound).
+     *
+     * @param bound The exclusive upper bound
+     * @return A random int
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Fills a new task manager with generated tasks.
+     *
+     * @param count The number of tasks to create
+     * @return A task manager holding the tasks, with IDs 1 to count
+     */
+    public TaskManager populate(int count) {
+        TaskManager taskManager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            Task task = taskManager.createTask(nextTitle(), nextDescription(), nextDeadline(), nextPriority());
+            Task.Status status = nextStatus();
+            if (status != Task.Status.TODO) {
+                taskManager.updateTaskFields(task.getId(), null, null, null, null, status);
+            }
+        }
+        return taskManager;
+    }
+
+    /**
+     * Generates a list of tasks without adding them to a manager.
+     *
+     * @param count The number of tasks to generate
+     * @return The generated tasks, with IDs 1 to count
+     */
+    public List<Task> generate(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Task task = new Task(i, nextTitle(), nextDescription(), nextDeadline(), nextPriority());
+            task.setStatus(nextStatus());
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns distinct made-up words built from Ukrainian syllables, two to ten letters long with
+     * most of them around five, like the word forms of real task texts. A vocabulary of tens of
+     * thousands of words is typical for a large, inflected store and exercises the word index
+     * of {@link TaskManager#fuzzySearch(String, int)} far more than the fixed phrases of
+     * {@link #nextDescription()}.
+     *
+     * @param size The number of words
+     * @return The words, in the order they were generated
+     */
+    public List<String> vocabulary(int size) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < size) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(3) + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) {
+                word.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+                word.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+            }
+            if (random.nextBoolean()) {
+                word.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+            }
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Fills a new task manager with tasks whose titles and descriptions are drawn from a vocabulary.
+     * Words early in the vocabulary are picked much more often than later ones, as in real text.
+     *
+     * @param count      The number of tasks to create
+     * @param vocabulary The words to build the texts from
+     * @return A task manager holding the tasks, with IDs 1 to count
+     */
+    public TaskManager populate(int count, List<String> vocabulary) {
+        TaskManager taskManager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            String title = nextWord(vocabulary) + " " + nextWord(vocabulary);
+            StringBuilder description = new StringBuilder(nextWord(vocabulary));
+            int words = 3 + random.nextInt(10);
+            for (int w = 1; w < words; w++) {
+                description.append(' ').append(nextWord(vocabulary));
+            }
+            taskManager.createTask(title, description.toString(), nextDeadline(), nextPriority());
+        }
+        return taskManager;
+    }
+
+    /**
+     * Returns a word of a vocabulary with one random typo (a letter replaced, dropped, added or
+     * swapped with the next one) in most cases, for fuzzy searches.
+     *
+     * @param vocabulary The words to pick from
+     * @return A search word
+     */
+    public String nextMisspelledWord(List<String> vocabulary) {
+        StringBuilder word = new StringBuilder(vocabulary.get(random.nextInt(vocabulary.size())));
+        int position = random.nextInt(word.length());
+        char letter = VOWELS.charAt(random.nextInt(VOWELS.length()));
+        switch (random.nextInt(5)) {
+            case 0:
+                word.setCharAt(position, letter);
+                break;
+            case 1:
+                if (word.length() > 2) {
+                    word.deleteCharAt(position);
+                }
+                break;
+            case 2:
+                word.insert(position, letter);
+                break;
+            case 3:
+                if (position + 1 < word.length()) {
+                    char next = word.charAt(position + 1);
+                    word.setCharAt(position + 1, word.charAt(position));
+                    word.setCharAt(position, next);
+                }
+                break;
+            default:
+                break;
+        }
+        return word.toString();
+    }
+
+    private String nextWord(List<String> vocabulary) {
+        // Cubing a uniform value skews the picks towards the start of the list
+        double skew = random.nextDouble();
+        return vocabulary.get((int) (skew * skew * skew * vocabulary.size()));
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,428 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test for {@link TaskManager} and {@link JsonTaskManager} under a mixed workload.
+ *
+ * <p>Unlike the JMH benchmarks in {@code benchmarks.TaskManagerBenchmark}, which run one operation at
+ * a time as fast as they can, the load test is open-loop: operations arrive on a fixed schedule (Poisson
+ * arrivals at the target rate) whether or not earlier ones have finished, and are spread over many threads. The latency of an operation is
+ * measured from its scheduled start, not from when a thread got round to it, so time spent queued
+ * behind slow operations is counted; this corrects the coordinated omission of closed-loop benchmarks.
+ * The service time, measured from the actual start, is reported alongside for comparison.
+ * If the system cannot keep up, the backlog is given a drain period after the schedule ends; operations
+ * still waiting then are not run, counted as unfinished and recorded with the time they had waited,
+ * which is a lower bound of their latency.</p>
+ *
+ * <p>The tasks are split over shards, each a {@link TaskManager} used by one thread at a time, as in
+ * {@link ShardedTaskManager}. A schedule is either generated from an operation mix or replayed from a
+ * trace file, one operation per line: {@code offset_micros,shard,operation,id,text}. A generated schedule
+ * can be written as a trace, so the same run can be repeated exactly on another build.</p>
+ *
+ * <p>Usage: {@code java TaskLoadTest [mix ...]} with the mixes {@code read-heavy}, {@code write-heavy}
+ * and {@code search-heavy} (all three by default), or {@code java TaskLoadTest replay <trace>}.
+ * The results are printed as CSV, one line per operation and one for all operations together.
+ * The system properties {@code load.rate} (operations per second), {@code load.seconds},
+ * {@code load.warmupSeconds}, {@code load.threads}, {@code load.shards}, {@code load.size} (tasks in
+ * all shards), {@code load.seed}, {@code load.recordTrace} (file to write the generated schedule to),
+ * {@code load.drainSeconds}, {@code load.replaySpeed} and {@code load.label} (a build name copied to every line) override the defaults.</p>
+ */
+public class TaskLoadTest {
+    private static final int THREADS = Integer.getInteger("load.threads", Runtime.getRuntime().availableProcessors());
+    private static final int SHARDS = Integer.getInteger("load.shards", THREADS);
+    private static final int SIZE = Integer.getInteger("load.size", 100_000);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "20000"));
+    private static final long SECONDS = Long.getLong("load.seconds", 30);
+    private static final long WARMUP_SECONDS = Long.getLong("load.warmupSeconds", 5);
+    private static final long DRAIN_SECONDS = Long.getLong("load.drainSeconds", 10);
+    private static final long SEED = Long.getLong("load.seed", 42);
+    private static final double REPLAY_SPEED = Double.parseDouble(System.getProperty("load.replaySpeed", "1"));
+    private static final String RECORD_TRACE = System.getProperty("load.recordTrace");
+    private static final String LABEL = System.getProperty("load.label", "");
+    private static final String[] SORT_CRITERIA = {"deadline", "priority", "status", "title"};
+
+    /** Results are folded into this field so the JIT cannot drop the measured calls. */
+    private static final LongAccumulator sink = new LongAccumulator(Long::sum, 0);
+
+    /**
+     * The operations of the workload.
+     */
+    enum OperationType {
+        GET, CREATE, UPDATE, DELETE, SEARCH, FUZZY_SEARCH, QUERY, SORT, SAVE, LOAD
+    }
+
+    /**
+     * Operation mixes, as weights per thousand operations in the order of {@link OperationType}.
+     */
+    enum Mix {
+        READ_HEAVY(890, 10, 20, 0, 30, 0, 45, 4, 0, 1),
+        WRITE_HEAVY(200, 350, 350, 90, 5, 0, 4, 0, 1, 0),
+        SEARCH_HEAVY(200, 0, 30, 0, 400, 100, 250, 20, 0, 0);
+
+        private final int[] weights;
+
+        Mix(int... weights) {
+            this.weights = weights;
+        }
+
+        OperationType pick(Random random) {
+            int value = random.nextInt(1000);
+            for (int i = 0; i < weights.length; i++) {
+                value -= weights[i];
+                if (value < 0) {
+                    return OperationType.values()[i];
+                }
+            }
+            return OperationType.GET;
+        }
+
+        static Mix parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * One scheduled operation. The meaning of the ID and the text depends on the type:
+     * the task to read, update or delete, the title to create, the keyword to search for,
+     * "STATUS|PRIORITY" for a query, or the sort criteria.
+     */
+    static final class Operation {
+        final long offsetNanos;
+        final int shard;
+        final OperationType type;
+        final int id;
+        final String text;
+
+        Operation(long offsetNanos, int shard, OperationType type, int id, String text) {
+            this.offsetNanos = offsetNanos;
+            this.shard = shard;
+            this.type = type;
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A task manager with its own file, used by one thread at a time.
+     */
+    private static final class Shard {
+        final TaskManager taskManager;
+        final String path;
+
+        Shard(TaskManager taskManager, String path) {
+            this.taskManager = taskManager;
+            this.path = path;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("label,workload,threads,shards,size,target_rate,operation,count,throughput,"
+                + "p50_us,p99_us,p999_us,max_us,mean_us,service_p50_us,service_p99_us,service_p999_us,unfinished");
+
+        if (args.length == 2 && args[0].equals("replay")) {
+            List<Operation> schedule = readTrace(args[1]);
+            double traceSeconds = schedule.isEmpty() ? 1 : schedule.get(schedule.size() - 1).offsetNanos / 1e9;
+            run("replay:" + new File(args[1]).getName(), schedule, schedule.size() / traceSeconds * REPLAY_SPEED);
+            return;
+        }
+
+        List<Mix> mixes = new ArrayList<>();
+        for (String arg : args) {
+            mixes.add(Mix.parse(arg));
+        }
+        if (mixes.isEmpty()) {
+            for (Mix mix : Mix.values()) {
+                mixes.add(mix);
+            }
+        }
+        for (Mix mix : mixes) {
+            List<Operation> schedule = generate(mix, new TaskDataGenerator(SEED));
+            if (RECORD_TRACE != null) {
+                writeTrace(schedule, mixes.size() == 1 ? RECORD_TRACE : RECORD_TRACE + "." + mix.name().toLowerCase(Locale.ROOT));
+            }
+            run(mix.name().toLowerCase(Locale.ROOT).replace('_', '-'), schedule, RATE);
+        }
+    }
+
+    /**
+     * Generates a schedule with Poisson arrivals at the target rate, covering the warmup and the measurement.
+     */
+    static List<Operation> generate(Mix mix, TaskDataGenerator generator) {
+        Random random = new Random(SEED);
+        int shardSize = Math.max(1, SIZE / SHARDS);
+        long end = (WARMUP_SECONDS + SECONDS) * 1_000_000_000L;
+        List<Operation> schedule = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, RATE * (WARMUP_SECONDS + SECONDS) * 1.1));
+        double time = 0;
+        while (true) {
+            time += -Math.log(1 - random.nextDouble()) / RATE * 1e9;
+            if (time >= end) {
+                break;
+            }
+            OperationType type = mix.pick(random);
+            int shard = random.nextInt(SHARDS);
+            int id = 1 + random.nextInt(shardSize);
+            String text = null;
+            switch (type) {
+                case CREATE:
+                    text = generator.nextTitle();
+                    break;
+                case SEARCH:
+                case FUZZY_SEARCH:
+                    text = generator.nextKeyword();
+                    break;
+                case QUERY:
+                    text = generator.nextStatus() + "|" + generator.nextPriority();
+                    break;
+                case SORT:
+                    text = SORT_CRITERIA[random.nextInt(SORT_CRITERIA.length)];
+                    break;
+                case UPDATE:
+                    text = generator.nextStatus().name();
+                    break;
+                default:
+                    break;
+            }
+            schedule.add(new Operation((long) time, shard, type, id, text));
+        }
+        return schedule;
+    }
+
+    /**
+     * Runs a schedule against freshly populated shards and prints the results.
+     */
+    private static void run(String workload, List<Operation> schedule, double targetRate) throws Exception {
+        Shard[] shards = createShards();
+        long warmupNanos = WARMUP_SECONDS * 1_000_000_000L;
+        int types = OperationType.values().length;
+        LatencyHistogram[] response = new LatencyHistogram[types];
+        LatencyHistogram[] service = new LatencyHistogram[types];
+        for (int i = 0; i < types; i++) {
+            response[i] = new LatencyHistogram();
+            service[i] = new LatencyHistogram();
+        }
+        AtomicLongArray unfinished = new AtomicLongArray(types);
+
+        // Every thread takes every THREADS-th operation, so each keeps its own part of the schedule
+        List<List<Operation>> parts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            parts.add(new ArrayList<>(schedule.size() / THREADS + 1));
+        }
+        for (int i = 0; i < schedule.size(); i++) {
+            parts.get(i % THREADS).add(schedule.get(i));
+        }
+
+        System.gc();
+        long start = System.nanoTime() + 100_000_000L;
+        long scheduleNanos = schedule.isEmpty() ? 0 : (long) (schedule.get(schedule.size() - 1).offsetNanos / REPLAY_SPEED);
+        long stop = start + scheduleNanos + DRAIN_SECONDS * 1_000_000_000L;
+        LongAccumulator lastEnd = new LongAccumulator(Long::max, start + warmupNanos);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            List<Operation> part = parts.get(i);
+            long threadSeed = SEED + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    long result = 0;
+                    TaskDataGenerator generator = new TaskDataGenerator(threadSeed);
+                    for (Operation operation : part) {
+                        long intended = start + (long) (operation.offsetNanos / REPLAY_SPEED);
+                        waitUntil(intended);
+                        long begin = System.nanoTime();
+                        if (begin > stop) {
+                            if (operation.offsetNanos >= warmupNanos) {
+                                response[operation.type.ordinal()].record(begin - intended);
+                                unfinished.incrementAndGet(operation.type.ordinal());
+                            }
+                            continue;
+                        }
+                        result += execute(operation, shards[operation.shard % shards.length], generator);
+                        long finish = System.nanoTime();
+                        if (operation.offsetNanos >= warmupNanos) {
+                            response[operation.type.ordinal()].record(finish - intended);
+                            service[operation.type.ordinal()].record(finish - begin);
+                            lastEnd.accumulate(finish);
+                        }
+                    }
+                    sink.accumulate(result);
+                } catch (Exception e) {
+                    System.err.println("Load test thread failed: " + e);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-test-" + i);
+            thread.start();
+        }
+        done.await();
+
+        // The measurement lasts at least as long as its part of the schedule, longer if the backlog ran over
+        double seconds = Math.max(lastEnd.get() - start, scheduleNanos) / 1e9 - warmupNanos / REPLAY_SPEED / 1e9;
+        LatencyHistogram allResponse = new LatencyHistogram();
+        LatencyHistogram allService = new LatencyHistogram();
+        long allUnfinished = 0;
+        for (OperationType type : OperationType.values()) {
+            LatencyHistogram histogram = response[type.ordinal()];
+            if (histogram.getCount() > 0) {
+                printLine(workload, targetRate, type.name().toLowerCase(Locale.ROOT), histogram,
+                        service[type.ordinal()], unfinished.get(type.ordinal()), seconds);
+            }
+            allResponse.add(histogram);
+            allService.add(service[type.ordinal()]);
+            allUnfinished += unfinished.get(type.ordinal());
+        }
+        printLine(workload, targetRate, "all", allResponse, allService, allUnfinished, seconds);
+
+        for (Shard shard : shards) {
+            new File(shard.path).delete();
+        }
+    }
+
+    private static Shard[] createShards() throws IOException {
+        JsonTaskManager jsonTaskManager = new JsonTaskManager();
+        int shardSize = Math.max(1, SIZE / SHARDS);
+        Shard[] shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            TaskManager taskManager = new TaskDataGenerator(SEED + i).populate(shardSize);
+            File file = File.createTempFile("tasks-load-", ".json");
+            file.deleteOnExit();
+            jsonTaskManager.saveTasks(taskManager.getAllTasks(), file.getPath());
+            shards[i] = new Shard(taskManager, file.getPath());
+        }
+        return shards;
+    }
+
+    /**
+     * Runs one operation on its shard. Operations on the same shard run one at a time.
+     *
+     * @return A value derived from the result
+     */
+    private static long execute(Operation operation, Shard shard, TaskDataGenerator generator) {
+        TaskManager taskManager = shard.taskManager;
+        synchronized (taskManager) {
+            switch (operation.type) {
+                case GET: {
+                    Task task = taskManager.getTaskById(operation.id);
+                    return task != null ? task.getId() : 0;
+                }
+                case CREATE:
+                    return taskManager.createTask(operation.text, generator.nextDescription(),
+                            generator.nextDeadline(), generator.nextPriority()).getId();
+                case UPDATE:
+                    return taskManager.updateTaskFields(operation.id, null, null, null, null,
+                            Task.Status.valueOf(operation.text)) ? 1 : 0;
+                case DELETE:
+                    return taskManager.deleteTask(operation.id) ? 1 : 0;
+                case SEARCH:
+                    return taskManager.searchTasks(operation.text).size();
+                case FUZZY_SEARCH:
+                    return taskManager.fuzzySearch(operation.text, 20).size();
+                case QUERY: {
+                    String[] parts = operation.text.split("\\|");
+                    TaskQuery query = new TaskQuery()
+                            .status(Task.Status.valueOf(parts[0]))
+                            .priority(Task.Priority.valueOf(parts[1]))
+                            .orderBy("deadline", true)
+                            .limit(20);
+                    return taskManager.query(query).size();
+                }
+                case SORT:
+                    return taskManager.sortTasks(operation.text, true).size();
+                case SAVE:
+                    return new JsonTaskManager().saveTasks(taskManager.getAllTasks(), shard.path) ? 1 : 0;
+                case LOAD:
+                    return new JsonTaskManager().loadTasks(shard.path).size();
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Waits for the scheduled start of an operation, sleeping for long waits and spinning for the last stretch.
+     * If the operation is already late it starts at once.
+     */
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            if (remaining > 100_000) {
+                LockSupport.parkNanos(remaining - 50_000);
+            }
+        }
+    }
+
+    private static void printLine(String workload, double targetRate, String operation,
+                                  LatencyHistogram response, LatencyHistogram service, long unfinished,
+                                  double seconds) {
+        // Throughput only counts the operations that ran
+        System.out.println(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.0f,%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d",
+                LABEL, workload, THREADS, SHARDS, SIZE, targetRate, operation, service.getCount(),
+                service.getCount() / seconds,
+                micros(response.getValueAtPercentile(50)), micros(response.getValueAtPercentile(99)),
+                micros(response.getValueAtPercentile(99.9)), micros(response.getMax()), response.getMean() / 1000,
+                micros(service.getValueAtPercentile(50)), micros(service.getValueAtPercentile(99)),
+                micros(service.getValueAtPercentile(99.9)), unfinished));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTrace(List, String)} or recorded elsewhere in the same format.
+     * Lines starting with '#' are ignored.
+     */
+    static List<Operation> readTrace(String path) throws IOException {
+        List<Operation> schedule = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", 5);
+                try {
+                    schedule.add(new Operation(Long.parseLong(fields[0]) * 1000, Integer.parseInt(fields[1]),
+                            OperationType.valueOf(fields[2].toUpperCase(Locale.ROOT)), Integer.parseInt(fields[3]),
+                            fields.length > 4 && !fields[4].isEmpty() ? fields[4] : null));
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping line " + lineNumber + " of " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        schedule.sort((a, b) -> Long.compare(a.offsetNanos, b.offsetNanos));
+        return schedule;
+    }
+
+    /**
+     * Writes a schedule as a trace file.
+     */
+    static void writeTrace(List<Operation> schedule, String path) throws IOException {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8))) {
+            writer.write("# offset_micros,shard,operation,id,text\n");
+            for (Operation operation : schedule) {
+                writer.write(operation.offsetNanos / 1000 + "," + operation.shard + ","
+                        + operation.type.name().toLowerCase(Locale.ROOT) + "," + operation.id + ","
+                        + (operation.text != null ? operation.text : "") + "\n");
+            }
+        }
+    }
+}
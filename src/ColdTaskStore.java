@@ -0,0 +1,297 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The on-disk tier of a {@link TaskManager}: an append-only file of task records with an
+ * in-memory index from task ID to file offset, kept as two sorted primitive arrays.
+ *
+ * <p>Each record is stored as its length followed by the ID, version, title, description,
+ * deadline, priority, status and the IDs of the tasks it waits for. Removing a task only marks
+ * its index entry; the file is compacted once more than half of it is removed records. The file
+ * is scratch space for the running process and is truncated when the store is opened, it is not
+ * a persistence format.</p>
+ */
+class ColdTaskStore {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final long REMOVED = -1;
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    private final File file;
+    private RandomAccessFile data;
+    private int[] ids;
+    private long[] offsets;
+    private int entries;
+    private int live;
+    private long liveBytes;
+
+    /**
+     * Opens a store in the specified file, discarding any previous content.
+     *
+     * @param path The path of the file
+     * @throws IOException If the file cannot be created
+     */
+    ColdTaskStore(String path) throws IOException {
+        this.file = new File(path);
+        this.data = new RandomAccessFile(file, "rw");
+        this.data.setLength(0);
+        this.ids = new int[16];
+        this.offsets = new long[16];
+    }
+
+    /**
+     * Appends tasks to the store in a single write.
+     *
+     * @param tasks The tasks to store; none of them may be stored already
+     * @return true if the tasks were written, false if writing failed
+     */
+    synchronized boolean write(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return true;
+        }
+        try {
+            long start = data.length();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            int[] newIds = new int[tasks.size()];
+            long[] newOffsets = new long[tasks.size()];
+            for (int i = 0; i < tasks.size(); i++) {
+                newIds[i] = tasks.get(i).getId();
+                newOffsets[i] = start + out.size();
+                writeRecord(out, tasks.get(i));
+            }
+            data.seek(start);
+            data.write(buffer.toByteArray());
+            liveBytes += out.size();
+            merge(newIds, newOffsets);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing cold tasks to " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a task is in the store.
+     *
+     * @param id The ID of the task
+     * @return true if the task is stored
+     */
+    synchronized boolean contains(int id) {
+        int position = Arrays.binarySearch(ids, 0, entries, id);
+        return position >= 0 && offsets[position] != REMOVED;
+    }
+
+    /**
+     * Reads a task without removing it.
+     *
+     * @param id The ID of the task
+     * @return A new task object with the stored values, or null if the task is not stored or cannot be read
+     */
+    synchronized Task read(int id) {
+        int position = Arrays.binarySearch(ids, 0, entries, id);
+        if (position < 0 || offsets[position] == REMOVED) {
+            return null;
+        }
+        try {
+            return readRecord(offsets[position]);
+        } catch (IOException e) {
+            System.err.println("Error reading cold task " + id + " from " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads a task and removes it from the store.
+     *
+     * @param id The ID of the task
+     * @return The task, or null if the task is not stored or cannot be read
+     */
+    synchronized Task remove(int id) {
+        Task task = read(id);
+        if (task == null) {
+            return null;
+        }
+        int position = Arrays.binarySearch(ids, 0, entries, id);
+        liveBytes -= 4 + recordLength(offsets[position]);
+        offsets[position] = REMOVED;
+        live--;
+        compactIfWasteful();
+        return task;
+    }
+
+    /**
+     * Reads all stored tasks in ID order.
+     *
+     * @return New task objects for all stored tasks
+     */
+    synchronized List<Task> readAll() {
+        List<Task> tasks = new ArrayList<>(live);
+        for (int i = 0; i < entries; i++) {
+            if (offsets[i] == REMOVED) {
+                continue;
+            }
+            try {
+                tasks.add(readRecord(offsets[i]));
+            } catch (IOException e) {
+                System.err.println("Error reading cold task " + ids[i] + " from " + file + ": " + e.getMessage());
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the number of stored tasks.
+     *
+     * @return The number of tasks
+     */
+    synchronized int size() {
+        return live;
+    }
+
+    /**
+     * Returns the size of the file, including removed records not compacted yet.
+     *
+     * @return The file size in bytes
+     */
+    synchronized long getFileSize() {
+        try {
+            return data.length();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Closes the file.
+     */
+    synchronized void close() {
+        try {
+            data.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Merges new, unsorted index entries into the sorted index and drops removed entries.
+     */
+    private void merge(int[] newIds, long[] newOffsets) {
+        Integer[] order = new Integer[newIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(newIds[a], newIds[b]));
+
+        int[] mergedIds = new int[live + newIds.length];
+        long[] mergedOffsets = new long[mergedIds.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < entries || j < order.length) {
+            if (i < entries && offsets[i] == REMOVED) {
+                i++;
+            } else if (j == order.length || (i < entries && ids[i] < newIds[order[j]])) {
+                mergedIds[count] = ids[i];
+                mergedOffsets[count++] = offsets[i++];
+            } else {
+                mergedIds[count] = newIds[order[j]];
+                mergedOffsets[count++] = newOffsets[order[j++]];
+            }
+        }
+        ids = mergedIds;
+        offsets = mergedOffsets;
+        entries = count;
+        live = count;
+    }
+
+    /**
+     * Rewrites the file without removed records once they take more than half of it.
+     */
+    private void compactIfWasteful() {
+        try {
+            long size = data.length();
+            if (size - liveBytes < Math.max(MIN_COMPACTION_BYTES, liveBytes)) {
+                return;
+            }
+            File compacted = new File(file.getPath() + ".compact");
+            try (RandomAccessFile target = new RandomAccessFile(compacted, "rw")) {
+                target.setLength(0);
+                int count = 0;
+                for (int i = 0; i < entries; i++) {
+                    if (offsets[i] == REMOVED) {
+                        continue;
+                    }
+                    byte[] record = new byte[4 + recordLength(offsets[i])];
+                    data.seek(offsets[i]);
+                    data.readFully(record);
+                    ids[count] = ids[i];
+                    offsets[count++] = target.getFilePointer();
+                    target.write(record);
+                }
+                entries = count;
+            }
+            data.close();
+            if (!file.delete() || !compacted.renameTo(file)) {
+                throw new IOException("cannot replace " + file);
+            }
+            data = new RandomAccessFile(file, "rw");
+        } catch (IOException e) {
+            System.err.println("Error compacting " + file + ": " + e.getMessage());
+        }
+    }
+
+    private int recordLength(long offset) {
+        try {
+            data.seek(offset);
+            return data.readInt();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Task task) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeInt(task.getId());
+        record.writeLong(task.getVersion());
+        MutationRecord.writeString(record, task.getTitle());
+        MutationRecord.writeString(record, task.getDescription());
+        MutationRecord.writeString(record, task.getDeadline().format(DATE_FORMATTER));
+        record.writeByte(task.getPriority().ordinal());
+        record.writeByte(task.getStatus().ordinal());
+        MutationRecord.writeIds(record, task.getBlockerIds());
+        out.writeInt(record.size());
+        buffer.writeTo(out);
+    }
+
+    private Task readRecord(long offset) throws IOException {
+        data.seek(offset);
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int id = in.readInt();
+        long version = in.readLong();
+        String title = MutationRecord.readString(in);
+        String description = MutationRecord.readString(in);
+        LocalDateTime deadline = LocalDateTime.parse(MutationRecord.readString(in), DATE_FORMATTER);
+        Task.Priority priority = Task.Priority.values()[in.readByte()];
+        Task.Status status = Task.Status.values()[in.readByte()];
+        int[] blockerIds = MutationRecord.readIds(in);
+
+        Task task = new Task(id, title, description, deadline, priority);
+        task.setStatus(status);
+        task.setBlockerIds(blockerIds);
+        task.setVersion(version);
+        return task;
+    }
+}
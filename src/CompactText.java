@@ -0,0 +1,128 @@
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores text as compact byte arrays that are decoded on demand.
+ * Java keeps any string with Cyrillic letters at two bytes per character. Text that fits
+ * the windows-1251 code page (ASCII plus the Ukrainian and Russian alphabets) is stored at
+ * one byte per character instead; anything else is stored as UTF-8.
+ * The first byte of an encoded array says which of the two encodings follows.
+ */
+public final class CompactText {
+    private static final byte SINGLE_BYTE = 0;
+    private static final byte UTF_8 = 1;
+    private static final String SINGLE_BYTE_CHARSET = "windows-1251";
+
+    /** Character for each byte of the single-byte code page, or null if the JDK lacks the charset. */
+    private static final char[] DECODE_TABLE;
+    /** Byte for each character (0 = not encodable, except for the NUL character itself). */
+    private static final byte[] ENCODE_TABLE;
+
+    static {
+        char[] decode = null;
+        byte[] encode = null;
+        if (Charset.isSupported(SINGLE_BYTE_CHARSET)) {
+            byte[] allBytes = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                allBytes[i] = (byte) i;
+            }
+            decode = new String(allBytes, Charset.forName(SINGLE_BYTE_CHARSET)).toCharArray();
+            encode = new byte[Character.MAX_VALUE + 1];
+            for (int i = 1; i < 256; i++) {
+                if (decode[i] != '\uFFFD') {
+                    encode[decode[i]] = (byte) i;
+                }
+            }
+        }
+        DECODE_TABLE = decode;
+        ENCODE_TABLE = encode;
+    }
+
+    private CompactText() {
+    }
+
+    /**
+     * Encodes a string into its compact form.
+     *
+     * @param value The string to encode (can be null)
+     * @return The encoded bytes, or null for a null string
+     */
+    public static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (ENCODE_TABLE != null) {
+            byte[] bytes = new byte[value.length() + 1];
+            bytes[0] = SINGLE_BYTE;
+            boolean encodable = true;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                byte b = ENCODE_TABLE[c];
+                if (b == 0 && c != 0) {
+                    encodable = false;
+                    break;
+                }
+                bytes[i + 1] = b;
+            }
+            if (encodable) {
+                return bytes;
+            }
+        }
+
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[utf8.length + 1];
+        bytes[0] = UTF_8;
+        System.arraycopy(utf8, 0, bytes, 1, utf8.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes bytes produced by {@link #encode(String)}.
+     *
+     * @param bytes The encoded bytes (can be null)
+     * @return The original string, or null for null bytes
+     */
+    public static String decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes[0] == UTF_8) {
+            return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+        }
+
+        char[] chars = new char[bytes.length - 1];
+        for (int i = 1; i < bytes.length; i++) {
+            chars[i - 1] = DECODE_TABLE[bytes[i] & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Estimates the heap retained by a string: the String object plus its backing array.
+     *
+     * @param value The string
+     * @return The estimated size in bytes
+     */
+    public static long estimateStringSize(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) <= 0xFF;
+        }
+        return 24 + align(16 + (long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    /**
+     * Estimates the heap retained by a byte array.
+     *
+     * @param bytes The array
+     * @return The estimated size in bytes
+     */
+    public static long estimateArraySize(byte[] bytes) {
+        return align(16 + bytes.length);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,522 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Fires reminders when task deadlines are reached.
+ * Pending deadlines are kept in a hierarchical timing wheel, so scheduling and
+ * cancelling a reminder costs O(1) regardless of how many deadlines are pending.
+ * Callbacks run on a small thread pool, never on the ticking thread.
+ * Each reminder fires once per deadline: rescheduling a task whose reminder already fired
+ * (after an edit of another field, or when a task manager is watched again) fires it again
+ * only if the deadline has changed.
+ * Reminders of tasks moved to the cold tier keep only the task ID and look the task up
+ * in the watched task manager when they fire.
+ */
+public class DeadlineScheduler implements TaskListener {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final int DEFAULT_CALLBACK_THREADS = 2;
+
+    /**
+     * Kinds of reminders fired for a task.
+     */
+    public enum ReminderType {
+        /** The deadline is coming up (fired {@code reminderLead} before the deadline). */
+        DUE,
+        /** The deadline has passed. */
+        OVERDUE
+    }
+
+    /**
+     * Receives reminders fired by the scheduler.
+     */
+    public interface ReminderListener {
+        /**
+         * Called when a task becomes due or overdue.
+         *
+         * @param task The task the reminder is for
+         * @param type The kind of reminder
+         */
+        void onReminder(Task task, ReminderType type);
+    }
+
+    private final ReminderListener listener;
+    private final Clock clock;
+    private final long tickMillis;
+    private final long reminderLeadMillis;
+    private final Executor callbackExecutor;
+    private final ExecutorService ownedExecutor;
+    private final Bucket[][] wheels;
+    private final int[] levelCounts;
+    private final Bucket overflow;
+    private final Map<Long, Entry> entries;
+    // The deadline each reminder last fired for, by reminder key; cleared when the task is done or deleted
+    private final Map<Long, Long> firedDeadlines;
+    private IntFunction<Task> lookup;
+    private long currentTick;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Creates a scheduler using the system clock, a one-second tick, no reminder lead time
+     * and its own callback thread pool.
+     *
+     * @param listener The listener that receives reminders
+     */
+    public DeadlineScheduler(ReminderListener listener) {
+        this(listener, Clock.systemDefaultZone(), Duration.ofSeconds(1), Duration.ZERO, null);
+    }
+
+    /**
+     * Creates a scheduler with the specified settings.
+     *
+     * @param listener         The listener that receives reminders
+     * @param clock            The clock used to decide which deadlines have passed
+     * @param tick             The resolution of the timing wheel
+     * @param reminderLead     How long before the deadline the DUE reminder fires
+     * @param callbackExecutor The executor that runs callbacks, or null to use a small internal pool
+     */
+    public DeadlineScheduler(ReminderListener listener, Clock clock, Duration tick, Duration reminderLead,
+                             Executor callbackExecutor) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+
+        this.listener = listener;
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.reminderLeadMillis = reminderLead.toMillis();
+        if (callbackExecutor != null) {
+            this.ownedExecutor = null;
+            this.callbackExecutor = callbackExecutor;
+        } else {
+            this.ownedExecutor = Executors.newFixedThreadPool(DEFAULT_CALLBACK_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "deadline-reminder");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.callbackExecutor = ownedExecutor;
+        }
+
+        this.wheels = new Bucket[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new Bucket();
+            }
+        }
+        this.levelCounts = new int[LEVELS];
+        this.overflow = new Bucket();
+        this.entries = new HashMap<>();
+        this.firedDeadlines = new HashMap<>();
+        this.currentTick = Math.floorDiv(clock.millis(), tickMillis);
+    }
+
+    /**
+     * Schedules reminders for every task in the manager and follows its future changes.
+     *
+     * @param taskManager The task manager to watch
+     */
+    public void watch(TaskManager taskManager) {
+        synchronized (this) {
+            lookup = taskManager::readTask;
+        }
+        for (Task task : taskManager.getAllTasks()) {
+            schedule(task);
+        }
+        taskManager.addListener(this);
+    }
+
+    /**
+     * Schedules (or reschedules) the reminders for a task.
+     * Tasks that are already done or have no deadline are not scheduled, and a reminder that
+     * has already fired for the task's current deadline is not scheduled again.
+     *
+     * @param task The task to schedule
+     */
+    public synchronized void schedule(Task task) {
+        removePending(task.getId());
+        if (task.getStatus() == Task.Status.DONE || task.getDeadline() == null) {
+            forgetFired(task.getId());
+            return;
+        }
+
+        long deadlineMillis = toMillis(task.getDeadline());
+        List<Entry> due = new ArrayList<>();
+        for (ReminderType type : ReminderType.values()) {
+            Long fired = firedDeadlines.get(key(task.getId(), type));
+            if (fired != null && fired == deadlineMillis) {
+                continue;
+            }
+            long fireAt = type == ReminderType.DUE ? deadlineMillis - reminderLeadMillis : deadlineMillis;
+            Entry entry = new Entry(task, type, deadlineMillis, ceilDiv(fireAt, tickMillis));
+            if (entry.tick <= currentTick) {
+                firedDeadlines.put(key(task.getId(), type), deadlineMillis);
+                due.add(entry);
+            } else {
+                entries.put(key(task.getId(), type), entry);
+                place(entry);
+            }
+        }
+        dispatch(due);
+    }
+
+    /**
+     * Cancels all pending reminders for a task and forgets which reminders already fired for it.
+     *
+     * @param taskId The ID of the task
+     */
+    public synchronized void cancel(int taskId) {
+        removePending(taskId);
+        forgetFired(taskId);
+    }
+
+    private void removePending(int taskId) {
+        for (ReminderType type : ReminderType.values()) {
+            Entry entry = entries.remove(key(taskId, type));
+            if (entry != null) {
+                unlink(entry);
+            }
+        }
+    }
+
+    private void forgetFired(int taskId) {
+        for (ReminderType type : ReminderType.values()) {
+            firedDeadlines.remove(key(taskId, type));
+        }
+    }
+
+    /**
+     * Returns the number of reminders that have not fired yet.
+     *
+     * @return The number of pending reminders
+     */
+    public synchronized int getPendingCount() {
+        return entries.size();
+    }
+
+    /**
+     * Advances the wheel to the current time of the clock and fires every reminder that became due.
+     * Called periodically after {@link #start()}; tests with a fixed clock can call it directly.
+     */
+    public void advance() {
+        List<Entry> due = new ArrayList<>();
+        synchronized (this) {
+            long nowTick = Math.floorDiv(clock.millis(), tickMillis);
+            while (currentTick < nowTick) {
+                long nextTick = nextInterestingTick();
+                if (nextTick > nowTick) {
+                    currentTick = nowTick;
+                    break;
+                }
+                currentTick = nextTick;
+                processTick(due);
+            }
+
+            // Deadlines changed through the setters bypass the listener, so recheck before firing
+            List<Entry> fire = new ArrayList<>(due.size());
+            for (Entry entry : due) {
+                if (entry.task == null) {
+                    // Evicted to the cold tier since it was scheduled
+                    entry.task = lookup != null ? lookup.apply(entry.taskId) : null;
+                    if (entry.task == null) {
+                        continue;
+                    }
+                }
+                Task task = entry.task;
+                if (task.getStatus() == Task.Status.DONE || task.getDeadline() == null) {
+                    continue;
+                }
+                if (toMillis(task.getDeadline()) != entry.deadlineMillis) {
+                    schedule(task);
+                    continue;
+                }
+                firedDeadlines.put(key(entry.taskId, entry.type), entry.deadlineMillis);
+                fire.add(entry);
+            }
+            due = fire;
+        }
+        dispatch(due);
+    }
+
+    /**
+     * Starts a background thread that advances the wheel once per tick.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deadline-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread and the internal callback pool, if any.
+     */
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public void onTaskCreated(Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public void onTaskUpdated(Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public void onTaskDeleted(Task task) {
+        cancel(task.getId());
+    }
+
+    /**
+     * Keeps the reminders of an evicted task but drops the reference to it; the task is looked up
+     * by ID when a reminder fires.
+     *
+     * @param task The evicted task
+     */
+    @Override
+    public synchronized void onTaskEvicted(Task task) {
+        for (ReminderType type : ReminderType.values()) {
+            Entry entry = entries.get(key(task.getId(), type));
+            if (entry != null) {
+                entry.task = null;
+            }
+        }
+    }
+
+    /**
+     * Puts an entry into the lowest wheel level whose range covers its tick.
+     * Entries too far in the future go to the overflow bucket.
+     *
+     * @param entry The entry to place
+     */
+    private void place(Entry entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+            if ((entry.tick >>> shift) == (currentTick >>> shift)) {
+                int slot = (int) ((entry.tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                entry.level = level;
+                wheels[level][slot].add(entry);
+                levelCounts[level]++;
+                return;
+            }
+        }
+        entry.level = -1;
+        overflow.add(entry);
+    }
+
+    /**
+     * Removes an entry from whichever bucket holds it.
+     *
+     * @param entry The entry to remove
+     */
+    private void unlink(Entry entry) {
+        if (entry.bucket == null) {
+            return;
+        }
+        if (entry.level >= 0) {
+            levelCounts[entry.level]--;
+        }
+        entry.bucket.remove(entry);
+    }
+
+    /**
+     * Handles the current tick: cascades higher levels whose slot starts now, then expires level 0.
+     *
+     * @param due Collects the entries that fired
+     */
+    private void processTick(List<Entry> due) {
+        if ((currentTick & ((1L << (WHEEL_BITS * LEVELS)) - 1)) == 0) {
+            cascade(overflow.drain(), due);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                int slot = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                Entry head = wheels[level][slot].drain();
+                for (Entry entry = head; entry != null; entry = entry.next) {
+                    levelCounts[level]--;
+                }
+                cascade(head, due);
+            }
+        }
+
+        Entry head = wheels[0][(int) (currentTick & WHEEL_MASK)].drain();
+        for (Entry entry = head; entry != null; entry = entry.next) {
+            levelCounts[0]--;
+            entries.remove(key(entry.taskId, entry.type));
+            due.add(entry);
+        }
+    }
+
+    /**
+     * Re-places a chain of drained entries relative to the current tick.
+     *
+     * @param head The first entry of the chain
+     * @param due  Collects entries that are already due
+     */
+    private void cascade(Entry head, List<Entry> due) {
+        Entry entry = head;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.next = null;
+            entry.prev = null;
+            if (entry.tick <= currentTick) {
+                entries.remove(key(entry.taskId, entry.type));
+                due.add(entry);
+            } else {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Finds the next tick at which something can happen, skipping over empty wheel ranges.
+     *
+     * @return The next tick worth processing, or Long.MAX_VALUE if nothing is pending
+     */
+    private long nextInterestingTick() {
+        if (levelCounts[0] > 0) {
+            for (long tick = currentTick + 1; (tick & WHEEL_MASK) != 0; tick++) {
+                if (!wheels[0][(int) (tick & WHEEL_MASK)].isEmpty()) {
+                    return tick;
+                }
+            }
+            return ((currentTick >>> WHEEL_BITS) + 1) << WHEEL_BITS;
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            if (levelCounts[level] > 0) {
+                int shift = WHEEL_BITS * level;
+                return ((currentTick >>> shift) + 1) << shift;
+            }
+        }
+        if (!overflow.isEmpty()) {
+            int shift = WHEEL_BITS * LEVELS;
+            return ((currentTick >>> shift) + 1) << shift;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Hands fired reminders to the callback executor.
+     *
+     * @param due The entries that fired
+     */
+    private void dispatch(List<Entry> due) {
+        for (Entry entry : due) {
+            callbackExecutor.execute(() -> {
+                if (entry.task.getStatus() != Task.Status.DONE) {
+                    listener.onReminder(entry.task, entry.type);
+                }
+            });
+        }
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private static Long key(int taskId, ReminderType type) {
+        return ((long) taskId << 1) | type.ordinal();
+    }
+
+    /**
+     * A pending reminder, linked into exactly one bucket.
+     */
+    private static class Entry {
+        private final int taskId;
+        // Null while the task is in the cold tier
+        private Task task;
+        private final ReminderType type;
+        private final long deadlineMillis;
+        private final long tick;
+        private int level;
+        private Bucket bucket;
+        private Entry prev;
+        private Entry next;
+
+        Entry(Task task, ReminderType type, long deadlineMillis, long tick) {
+            this.taskId = task.getId();
+            this.task = task;
+            this.type = type;
+            this.deadlineMillis = deadlineMillis;
+            this.tick = tick;
+        }
+    }
+
+    /**
+     * A doubly linked list of entries supporting O(1) insertion and removal.
+     */
+    private static class Bucket {
+        private Entry head;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
+
+        /**
+         * Detaches and returns the whole chain, leaving the bucket empty.
+         */
+        Entry drain() {
+            Entry chain = head;
+            head = null;
+            for (Entry entry = chain; entry != null; entry = entry.next) {
+                entry.bucket = null;
+            }
+            return chain;
+        }
+    }
+}
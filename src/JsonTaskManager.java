@@ -1,16 +1,46 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Manages JSON serialization and deserialization of tasks.
  * Provides functionality to save tasks to a file and load tasks from a file.
+ * A task that waits for other tasks has a "blockedBy" array with their IDs; tasks without
+ * dependencies leave it out, so their objects look as they always did.
+ *
+ * <p>Files can also be written compressed. A compressed file starts with the bytes "PTMZ"
+ * and a format version, followed by independent blocks. Each block holds the JSON array of
+ * up to {@value #BLOCK_TASKS} tasks, deflated on its own, and is stored as
+ * [sync marker][raw length][compressed length][CRC32C][compressed bytes], where the checksum
+ * covers both lengths as well as the compressed bytes. Blocks are compressed and decompressed
+ * in parallel, and a corrupt block only loses its own tasks: if a damaged length points
+ * anywhere but the next marker, the reader scans forward to the next sync marker and goes on
+ * from there. Files of format version 1, which have no markers and only checksum the
+ * compressed bytes, can still be read. {@link #loadTasks(String)} detects the format from the header.</p>
  */
 public class JsonTaskManager {
-    private static final String DEFAULT_FILE_PATH = "tasks.json";
+    static final String DEFAULT_FILE_PATH = "tasks.json";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final byte[] COMPRESSED_MAGIC = {'P', 'T', 'M', 'Z'};
+    private static final byte COMPRESSED_VERSION = 2;
+    private static final byte UNMARKED_VERSION = 1;
+    private static final int BLOCK_TASKS = 4096;
+    private static final byte[] BLOCK_SYNC = {(byte) 0xB7, 'P', 'T', 'M', 'B', 'L', 'K', (byte) 0x8E};
+    private static final int BLOCK_HEADER_BYTES = BLOCK_SYNC.length + 12;
+    private static final int UNMARKED_HEADER_BYTES = 12;
 
     /**
      * Creates a new JsonTaskManager.
@@ -28,14 +58,97 @@ public class JsonTaskManager {
      */
     public boolean saveTasks(List<Task> tasks, String filePath) {
         String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
+        TaskMetrics.FileProbe probe = TaskMetrics.beginFile("saveTasks", path);
 
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
             writer.write(tasksToJson(tasks));
-            return true;
         } catch (IOException e) {
             System.err.println("Error saving tasks to file: " + e.getMessage());
+            probe.end(0, 0, false);
             return false;
         }
+        probe.end(new File(path).length(), tasks.size(), true);
+        return true;
+    }
+
+    /**
+     * Saves a list of tasks to a compressed file made of independently deflated, checksummed blocks.
+     *
+     * @param tasks The tasks to save
+     * @param filePath The path to the file (optional, uses default if not provided)
+     * @return true if the tasks were saved successfully, false otherwise
+     */
+    public boolean saveTasksCompressed(List<Task> tasks, String filePath) {
+        String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
+        TaskMetrics.FileProbe probe = TaskMetrics.beginFile("saveTasksCompressed", path);
+
+        int blockCount = (tasks.size() + BLOCK_TASKS - 1) / BLOCK_TASKS;
+        List<byte[]> blocks = IntStream.range(0, blockCount)
+                .parallel()
+                .mapToObj(block -> compressBlock(tasks.subList(block * BLOCK_TASKS,
+                        Math.min(tasks.size(), (block + 1) * BLOCK_TASKS))))
+                .collect(Collectors.toList());
+
+        long bytes = COMPRESSED_MAGIC.length + 1;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+            out.write(COMPRESSED_MAGIC);
+            out.write(COMPRESSED_VERSION);
+            for (byte[] block : blocks) {
+                out.write(block);
+                bytes += block.length;
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving tasks to file: " + e.getMessage());
+            probe.end(0, 0, false);
+            return false;
+        }
+        probe.end(bytes, tasks.size(), true);
+        return true;
+    }
+
+    /**
+     * Saves a list of tasks to a JSON file, like {@link #saveTasks(List, String)}, and writes a
+     * sidecar offset index next to it that {@link LazyTaskStore} can open without parsing the file.
+     *
+     * @param tasks The tasks to save
+     * @param filePath The path to the file (optional, uses default if not provided)
+     * @return true if the tasks and the index were saved successfully, false otherwise
+     */
+    public boolean saveTasksWithIndex(List<Task> tasks, String filePath) {
+        String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
+        TaskMetrics.FileProbe probe = TaskMetrics.beginFile("saveTasksWithIndex", path);
+
+        // The bytes are the same as saveTasks writes; each object's position is noted on the way
+        Charset charset = Charset.defaultCharset();
+        long[] offsets = new long[tasks.size()];
+        int[] lengths = new int[tasks.size()];
+        long position = 0;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path), 64 * 1024)) {
+            byte[] open = "[\n".getBytes(charset);
+            out.write(open);
+            position += open.length;
+            StringBuilder json = new StringBuilder(512);
+            for (int i = 0; i < tasks.size(); i++) {
+                json.setLength(0);
+                appendTaskJson(json, tasks.get(i));
+                byte[] object = json.toString().getBytes(charset);
+                offsets[i] = position;
+                lengths[i] = object.length;
+                out.write(object);
+                byte[] separator = (i < tasks.size() - 1 ? ",\n" : "\n").getBytes(charset);
+                out.write(separator);
+                position += object.length + separator.length;
+            }
+            out.write("]".getBytes(charset));
+        } catch (IOException e) {
+            System.err.println("Error saving tasks to file: " + e.getMessage());
+            probe.end(0, 0, false);
+            return false;
+        }
+
+        boolean indexed = LazyTaskStore.writeIndex(path, tasks, offsets, lengths);
+        probe.end(new File(path).length(), tasks.size(), indexed);
+        return indexed;
     }
 
     /**
@@ -63,15 +176,20 @@ public class JsonTaskManager {
             return new ArrayList<>();
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            StringBuilder jsonContent = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonContent.append(line);
-            }
-            return jsonToTasks(jsonContent.toString());
+        TaskMetrics.FileProbe probe = TaskMetrics.beginFile("loadTasks", path);
+        try {
+            // Read the whole file in one go; the files are written with the default charset
+            byte[] content = Files.readAllBytes(file.toPath());
+            long parseStart = System.nanoTime();
+            List<Task> tasks = isCompressed(content)
+                    ? compressedToTasks(content)
+                    : jsonToTasks(new String(content, Charset.defaultCharset()));
+            TaskMetrics.recordParse(tasks.size(), System.nanoTime() - parseStart);
+            probe.end(content.length, tasks.size(), true);
+            return tasks;
         } catch (IOException e) {
             System.err.println("Error loading tasks from file: " + e.getMessage());
+            probe.end(0, 0, false);
             return new ArrayList<>();
         }
     }
@@ -85,6 +203,264 @@ public class JsonTaskManager {
         return loadTasks(DEFAULT_FILE_PATH);
     }
 
+    /**
+     * Converts a list of tasks to the same JSON text that {@link #saveTasks(List, String)} writes.
+     *
+     * @param tasks The tasks to convert
+     * @return A JSON string representing the tasks
+     */
+    public String toJson(List<Task> tasks) {
+        return tasksToJson(tasks);
+    }
+
+    /**
+     * Parses JSON text in the format written by {@link #saveTasks(List, String)}.
+     * Task IDs are kept as they appear in the text.
+     *
+     * @param json The JSON string to parse
+     * @return The parsed tasks
+     */
+    public List<Task> fromJson(String json) {
+        return jsonToTasks(json);
+    }
+
+    /**
+     * Parses a single task object as written inside the array by {@link #saveTasks(List, String)}.
+     *
+     * @param json The JSON object
+     * @return The task, or null if the object cannot be parsed
+     */
+    Task parseTask(String json) {
+        return parseTaskObject(json, 0, json.length());
+    }
+
+    /**
+     * Serializes and deflates one block of tasks, with its header.
+     *
+     * @param tasks The tasks of the block
+     * @return The header followed by the compressed JSON
+     */
+    private byte[] compressBlock(List<Task> tasks) {
+        byte[] raw = tasksToJson(tasks).getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            byte[] data = compressed.toByteArray();
+
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + data.length);
+            block.put(BLOCK_SYNC);
+            block.putInt(raw.length);
+            block.putInt(data.length);
+            CRC32C crc = new CRC32C();
+            crc.update(block.array(), BLOCK_SYNC.length, 8);
+            crc.update(data);
+            block.putInt((int) crc.getValue());
+            block.put(data);
+            return block.array();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Checks whether file content starts with the compressed format header.
+     *
+     * @param content The file content
+     * @return true if the content is in the compressed format
+     */
+    private boolean isCompressed(byte[] content) {
+        if (content.length < COMPRESSED_MAGIC.length + 1) {
+            return false;
+        }
+        for (int i = 0; i < COMPRESSED_MAGIC.length; i++) {
+            if (content[i] != COMPRESSED_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads all tasks from compressed file content.
+     * Block boundaries are found sequentially, then the blocks are verified, inflated and parsed
+     * in parallel. Blocks that fail their checksum or cannot be inflated are reported and skipped.
+     * When the lengths of a block do not lead to the sync marker of the next one, the following
+     * blocks are found by scanning for the marker, so a damaged header does not lose the rest of the file.
+     *
+     * @param content The file content, starting with the header
+     * @return The tasks of all intact blocks, in file order
+     */
+    private List<Task> compressedToTasks(byte[] content) {
+        byte version = content[COMPRESSED_MAGIC.length];
+        if (version == UNMARKED_VERSION) {
+            return parseBlocks(content, findUnmarkedBlocks(content));
+        }
+        if (version != COMPRESSED_VERSION) {
+            System.err.println("Unsupported compressed file version: " + version);
+            return new ArrayList<>();
+        }
+
+        List<int[]> blocks = new ArrayList<>();
+        int position = COMPRESSED_MAGIC.length + 1;
+        while (position <= content.length - BLOCK_HEADER_BYTES) {
+            int start = position;
+            if (!isSyncAt(content, start)) {
+                System.err.println("Error loading tasks from file: damaged block at byte " + start
+                        + ", skipping to the next block");
+                TaskMetrics.recordParseFailure();
+                start = findSync(content, start + 1);
+                if (start < 0) {
+                    break;
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.wrap(content, start + BLOCK_SYNC.length, 12);
+            int rawLength = header.getInt();
+            int compressedLength = header.getInt();
+            int checksum = header.getInt();
+            int dataOffset = start + BLOCK_HEADER_BYTES;
+            if (rawLength >= 0 && compressedLength >= 0 && compressedLength <= content.length - dataOffset) {
+                // The checksum covers the two lengths and the compressed bytes
+                blocks.add(new int[]{dataOffset, compressedLength, rawLength, checksum, start,
+                        start + BLOCK_SYNC.length});
+                position = dataOffset + compressedLength;
+            } else {
+                position = -1;
+            }
+            if (position < 0 || (position < content.length && !isSyncAt(content, position))) {
+                // A damaged length or marker: look for the next block right after this marker instead
+                System.err.println("Error loading tasks from file: damaged block "
+                        + (position < 0 ? "header at byte " + start : "marker at byte " + position)
+                        + ", skipping to the next block");
+                TaskMetrics.recordParseFailure();
+                position = findSync(content, start + 1);
+                if (position < 0) {
+                    break;
+                }
+            }
+        }
+        return parseBlocks(content, blocks);
+    }
+
+    /**
+     * Finds the blocks of a format version 1 file, which can only be walked by their lengths.
+     */
+    private List<int[]> findUnmarkedBlocks(byte[] content) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        buffer.position(COMPRESSED_MAGIC.length + 1);
+        List<int[]> blocks = new ArrayList<>();
+        while (buffer.remaining() >= UNMARKED_HEADER_BYTES) {
+            int start = buffer.position();
+            int rawLength = buffer.getInt();
+            int compressedLength = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (rawLength < 0 || compressedLength < 0 || compressedLength > buffer.remaining()) {
+                System.err.println("Error loading tasks from file: truncated or damaged block at byte " + start);
+                TaskMetrics.recordParseFailure();
+                break;
+            }
+            blocks.add(new int[]{buffer.position(), compressedLength, rawLength, checksum, start, buffer.position()});
+            buffer.position(buffer.position() + compressedLength);
+        }
+        return blocks;
+    }
+
+    /**
+     * Verifies, inflates and parses blocks in parallel.
+     *
+     * @param blocks For each block: data offset, compressed length, raw length, checksum,
+     *               block start and the offset the checksum starts at
+     * @return The tasks of the intact blocks, in file order
+     */
+    private List<Task> parseBlocks(byte[] content, List<int[]> blocks) {
+        List<List<Task>> parsed = blocks.parallelStream()
+                .map(block -> inflateBlock(content, block[0], block[1], block[2], block[3], block[4], block[5]))
+                .collect(Collectors.toList());
+
+        List<Task> tasks = new ArrayList<>(blocks.size() * BLOCK_TASKS);
+        for (List<Task> blockTasks : parsed) {
+            tasks.addAll(blockTasks);
+        }
+        return tasks;
+    }
+
+    private boolean isSyncAt(byte[] content, int position) {
+        if (position < 0 || position > content.length - BLOCK_SYNC.length) {
+            return false;
+        }
+        for (int i = 0; i < BLOCK_SYNC.length; i++) {
+            if (content[position + i] != BLOCK_SYNC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the next sync marker at or after a position, or -1 if there is none.
+     */
+    private int findSync(byte[] content, int from) {
+        for (int position = from; position <= content.length - BLOCK_HEADER_BYTES; position++) {
+            if (content[position] == BLOCK_SYNC[0] && isSyncAt(content, position)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Verifies, inflates and parses one block.
+     * The checksum covers everything from {@code checksumStart} to the end of the compressed bytes,
+     * except the checksum field itself, which sits just before the compressed bytes.
+     *
+     * @return The tasks of the block, or an empty list if the block is corrupt
+     */
+    private List<Task> inflateBlock(byte[] content, int offset, int length, int rawLength, int checksum,
+                                    int blockStart, int checksumStart) {
+        CRC32C crc = new CRC32C();
+        if (checksumStart < offset) {
+            crc.update(content, checksumStart, offset - 4 - checksumStart);
+        }
+        crc.update(content, offset, length);
+        if ((int) crc.getValue() != checksum) {
+            System.err.println("Error loading tasks from file: checksum mismatch in block at byte " + blockStart);
+            TaskMetrics.recordParseFailure();
+            return new ArrayList<>();
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(content, offset, length);
+            byte[] raw = new byte[rawLength];
+            int filled = 0;
+            while (filled < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, filled, rawLength - filled);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                filled += inflated;
+            }
+            if (filled != rawLength) {
+                throw new DataFormatException("expected " + rawLength + " bytes but got " + filled);
+            }
+            return jsonToTasks(new String(raw, StandardCharsets.UTF_8));
+        } catch (DataFormatException e) {
+            System.err.println("Error loading tasks from file: cannot inflate block at byte " + blockStart
+                    + ": " + e.getMessage());
+            TaskMetrics.recordParseFailure();
+            return new ArrayList<>();
+        } finally {
+            inflater.end();
+        }
+    }
+
     /**
      * Converts a list of tasks to a JSON string.
      *
@@ -96,15 +472,7 @@ public class JsonTaskManager {
         json.append("[\n");
 
         for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            json.append("  {\n");
-            json.append("    \"id\": ").append(task.getId()).append(",\n");
-            json.append("    \"title\": \"").append(escapeJson(task.getTitle())).append("\",\n");
-            json.append("    \"description\": \"").append(escapeJson(task.getDescription())).append("\",\n");
-            json.append("    \"deadline\": \"").append(task.getDeadline().format(DATE_FORMATTER)).append("\",\n");
-            json.append("    \"priority\": \"").append(task.getPriority()).append("\",\n");
-            json.append("    \"status\": \"").append(task.getStatus()).append("\"\n");
-            json.append("  }");
+            appendTaskJson(json, tasks.get(i));
 
             if (i < tasks.size() - 1) {
                 json.append(",");
@@ -116,33 +484,75 @@ public class JsonTaskManager {
         return json.toString();
     }
 
+    /**
+     * Appends the JSON object of one task, with the indentation used inside the array.
+     *
+     * @param json The builder to append to
+     * @param task The task to convert
+     */
+    private void appendTaskJson(StringBuilder json, Task task) {
+        json.append("  {\n");
+        json.append("    \"id\": ").append(task.getId()).append(",\n");
+        json.append("    \"title\": \"").append(escapeJson(task.getTitle())).append("\",\n");
+        json.append("    \"description\": \"").append(escapeJson(task.getDescription())).append("\",\n");
+        json.append("    \"deadline\": \"").append(task.getDeadline().format(DATE_FORMATTER)).append("\",\n");
+        json.append("    \"priority\": \"").append(task.getPriority()).append("\",\n");
+        json.append("    \"status\": \"").append(task.getStatus()).append("\"");
+        int[] blockerIds = task.getBlockerIds();
+        if (blockerIds.length > 0) {
+            json.append(",\n    \"blockedBy\": [");
+            for (int i = 0; i < blockerIds.length; i++) {
+                if (i > 0) {
+                    json.append(", ");
+                }
+                json.append(blockerIds[i]);
+            }
+            json.append("]");
+        }
+        json.append("\n  }");
+    }
+
     /**
      * Converts a JSON string to a list of tasks.
+     * The text is scanned once, front to back. A task object that cannot be parsed
+     * is reported and skipped; the objects around it are still loaded.
      *
      * @param json The JSON string to convert
      * @return A list of tasks
      */
     private List<Task> jsonToTasks(String json) {
-        List<Task> tasks = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>(Math.max(16, json.length() / 200));
+        JsonReader reader = new JsonReader(json, 0, json.length());
 
-        // Simple JSON parsing without external libraries
-        // This is a basic implementation and might not handle all edge cases
         try {
-            if (json.trim().startsWith("[") && json.trim().endsWith("]")) {
-                // Remove the outer brackets
-                json = json.trim().substring(1, json.trim().length() - 1).trim();
-
-                // Split by object delimiter
-                String[] taskObjects = splitJsonObjects(json);
-
-                for (String taskObject : taskObjects) {
-                    if (!taskObject.trim().isEmpty()) {
-                        Task task = parseTaskObject(taskObject.trim());
-                        if (task != null) {
-                            tasks.add(task);
-                        }
-                    }
+            reader.skipWhitespace();
+            if (!reader.hasMore() || reader.peek() != '[') {
+                return tasks;
+            }
+            reader.next();
+
+            while (true) {
+                reader.skipWhitespace();
+                if (!reader.hasMore() || reader.peek() == ']') {
+                    break;
+                }
+                if (reader.peek() == ',') {
+                    reader.next();
+                    continue;
+                }
+
+                int objectStart = reader.position();
+                int objectEnd = findObjectEnd(json, objectStart);
+                if (objectEnd < 0) {
+                    System.err.println("Error parsing JSON: unterminated task object at " + objectStart);
+                    TaskMetrics.recordParseFailure();
+                    break;
                 }
+                Task task = parseTaskObject(json, objectStart, objectEnd);
+                if (task != null) {
+                    tasks.add(task);
+                }
+                reader.seek(objectEnd);
             }
         } catch (Exception e) {
             System.err.println("Error parsing JSON: " + e.getMessage());
@@ -152,53 +562,51 @@ public class JsonTaskManager {
     }
 
     /**
-     * Splits a JSON string into individual object strings.
+     * Finds the end of the JSON object starting at the specified position.
+     * Braces inside string values are ignored.
      *
-     * @param json The JSON string to split
-     * @return An array of object strings
+     * @param json  The JSON text
+     * @param start The position of the opening brace
+     * @return The position just after the matching closing brace, or -1 if there is none
      */
-    private String[] splitJsonObjects(String json) {
-        List<String> objects = new ArrayList<>();
+    private int findObjectEnd(String json, int start) {
         int depth = 0;
-        StringBuilder currentObject = new StringBuilder();
+        boolean inString = false;
 
-        for (int i = 0; i < json.length(); i++) {
+        for (int i = start; i < json.length(); i++) {
             char c = json.charAt(i);
-
-            if (c == '{') {
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
                 depth++;
-                currentObject.append(c);
             } else if (c == '}') {
                 depth--;
-                currentObject.append(c);
-
                 if (depth == 0) {
-                    objects.add(currentObject.toString());
-                    currentObject = new StringBuilder();
-
-                    // Skip the comma and whitespace after the object
-                    while (i + 1 < json.length() && (json.charAt(i + 1) == ',' || Character.isWhitespace(json.charAt(i + 1)))) {
-                        i++;
-                    }
+                    return i + 1;
                 }
-            } else if (depth > 0) {
-                currentObject.append(c);
             }
         }
 
-        return objects.toArray(new String[0]);
+        return -1;
     }
 
     /**
-     * Parses a JSON object string into a Task object.
+     * Parses the JSON object between two positions of a larger text into a Task object.
      *
-     * @param json The JSON object string to parse
+     * @param json  The JSON text
+     * @param start The position of the opening brace
+     * @param end   The position just after the closing brace
      * @return A Task object, or null if parsing fails
      */
-    private Task parseTaskObject(String json) {
+    private Task parseTaskObject(String json, int start, int end) {
         try {
-            // Remove the outer braces
-            json = json.substring(1, json.length() - 1).trim();
+            JsonReader reader = new JsonReader(json, start, end);
 
             int id = -1;
             String title = "";
@@ -206,60 +614,113 @@ public class JsonTaskManager {
             LocalDateTime deadline = null;
             Task.Priority priority = Task.Priority.MEDIUM;
             Task.Status status = Task.Status.TODO;
+            int[] blockerIds = null;
+
+            reader.skipWhitespace();
+            reader.expect('{');
+            while (true) {
+                reader.skipWhitespace();
+                char c = reader.peek();
+                if (c == '}') {
+                    break;
+                }
+                if (c == ',') {
+                    reader.next();
+                    continue;
+                }
 
-            // Split by properties
-            String[] properties = json.split(",(?=\\s*\"[^\"]+\"\\s*:)");
-
-            for (String property : properties) {
-                String[] keyValue = property.split(":", 2);
-                if (keyValue.length == 2) {
-                    String key = keyValue[0].trim().replace("\"", "");
-                    String value = keyValue[1].trim();
-
-                    // Remove quotes from string values
-                    if (value.startsWith("\"") && value.endsWith("\"")) {
-                        value = value.substring(1, value.length() - 1);
-                    }
-
-                    switch (key) {
-                        case "id":
-                            id = Integer.parseInt(value);
-                            break;
-                        case "title":
-                            title = value;
-                            break;
-                        case "description":
-                            description = value;
-                            break;
-                        case "deadline":
-                            deadline = LocalDateTime.parse(value, DATE_FORMATTER);
-                            break;
-                        case "priority":
-                            priority = Task.Priority.valueOf(value);
-                            break;
-                        case "status":
-                            status = Task.Status.valueOf(value);
-                            break;
+                String key = reader.readString();
+                reader.skipWhitespace();
+                reader.expect(':');
+                reader.skipWhitespace();
+                if (reader.peek() == '[') {
+                    int[] ids = reader.readIds();
+                    if (key.equals("blockedBy")) {
+                        blockerIds = ids;
                     }
+                    continue;
+                }
+                String value = reader.peek() == '"' ? reader.readString() : reader.readToken();
+
+                switch (key) {
+                    case "id":
+                        id = Integer.parseInt(value);
+                        break;
+                    case "title":
+                        title = value;
+                        break;
+                    case "description":
+                        description = value;
+                        break;
+                    case "deadline":
+                        deadline = parseDeadline(value);
+                        break;
+                    case "priority":
+                        priority = Task.Priority.valueOf(value);
+                        break;
+                    case "status":
+                        status = Task.Status.valueOf(value);
+                        break;
                 }
             }
 
-            // Create a new task with the parsed values
-            // Note: This assumes the Task class has a constructor that accepts all these parameters
-            // If not, we'll need to create the task and set its properties individually
-            Task task = new Task(title, description, deadline, priority);
+            // A missing or invalid ID stays 0, and the task manager that imports the task numbers it;
+            // the process-wide counter is left alone, as it means nothing to any one manager
+            Task task = new Task(Math.max(id, 0), title, description, deadline, priority);
             task.setStatus(status);
-
-            // Handle the ID (this might need adjustment based on how Task IDs are managed)
-            // For now, we'll just create the task and assume the ID is handled internally
+            if (blockerIds != null) {
+                task.setBlockerIds(blockerIds);
+            }
 
             return task;
         } catch (Exception e) {
             System.err.println("Error parsing task object: " + e.getMessage());
+            TaskMetrics.recordParseFailure();
             return null;
         }
     }
 
+    /**
+     * Parses a deadline in ISO format. The common "yyyy-MM-ddTHH:mm:ss" shape written by
+     * {@link #saveTasks(List, String)} is decoded directly, which is several times faster
+     * than going through the formatter; anything else falls back to the formatter.
+     *
+     * @param value The text to parse
+     * @return The parsed date and time
+     */
+    private LocalDateTime parseDeadline(String value) {
+        if (value.length() == 19 && value.charAt(4) == '-' && value.charAt(7) == '-' && value.charAt(10) == 'T'
+                && value.charAt(13) == ':' && value.charAt(16) == ':') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 7);
+            int day = digits(value, 8, 10);
+            int hour = digits(value, 11, 13);
+            int minute = digits(value, 14, 16);
+            int second = digits(value, 17, 19);
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(value, DATE_FORMATTER);
+    }
+
+    /**
+     * Reads a run of decimal digits.
+     *
+     * @return The value, or -1 if a character is not a digit
+     */
+    private static int digits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
     /**
      * Escapes special characters in a string for JSON.
      *
@@ -277,4 +738,159 @@ public class JsonTaskManager {
                    .replace("\r", "\\r")
                    .replace("\t", "\\t");
     }
+
+    /**
+     * A minimal cursor over a region of JSON text, enough for the flat task objects this class writes.
+     */
+    private static class JsonReader {
+        private final String text;
+        private final int end;
+        private int position;
+
+        JsonReader(String text, int start, int end) {
+            this.text = text;
+            this.position = start;
+            this.end = end;
+        }
+
+        boolean hasMore() {
+            return position < end;
+        }
+
+        int position() {
+            return position;
+        }
+
+        void seek(int newPosition) {
+            position = newPosition;
+        }
+
+        char peek() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Unexpected end of JSON at " + position);
+            }
+            return text.charAt(position);
+        }
+
+        char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        void expect(char expected) {
+            char c = next();
+            if (c != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' but found '" + c + "' at " + (position - 1));
+            }
+        }
+
+        void skipWhitespace() {
+            while (position < end && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Reads a quoted string and resolves its escape sequences.
+         */
+        String readString() {
+            expect('"');
+            int start = position;
+            while (position < end) {
+                char c = text.charAt(position);
+                if (c == '"') {
+                    String value = text.substring(start, position);
+                    position++;
+                    return value;
+                }
+                if (c == '\\') {
+                    return readEscapedString(start);
+                }
+                position++;
+            }
+            throw new IllegalArgumentException("Unterminated string at " + start);
+        }
+
+        private String readEscapedString(int start) {
+            StringBuilder value = new StringBuilder(text.substring(start, position));
+            while (position < end) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+
+                char escaped = next();
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                        break;
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string at " + start);
+        }
+
+        /**
+         * Reads an unquoted value such as a number, true, false or null.
+         */
+        /**
+         * Reads an array of integers, such as a task's "blockedBy" IDs.
+         */
+        int[] readIds() {
+            expect('[');
+            int[] ids = new int[4];
+            int count = 0;
+            while (true) {
+                skipWhitespace();
+                char c = peek();
+                if (c == ']') {
+                    next();
+                    return Arrays.copyOf(ids, count);
+                }
+                if (c == ',') {
+                    next();
+                    continue;
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = Integer.parseInt(readToken());
+            }
+        }
+
+        String readToken() {
+            int start = position;
+            while (position < end) {
+                char c = text.charAt(position);
+                if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    break;
+                }
+                position++;
+            }
+            return text.substring(start, position);
+        }
+    }
 }
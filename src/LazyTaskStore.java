@@ -0,0 +1,284 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opens a task file written by {@link JsonTaskManager#saveTasksWithIndex(List, String)} without parsing it.
+ *
+ * <p>The sidecar index ({@code <file>.idx}) holds one fixed-size record per task, sorted by ID:
+ * the ID, the byte offset and length of the task's JSON object, the deadline, the priority and the status.
+ * Opening the store only reads the index into memory, 26 bytes per task, and never the JSON file.
+ * A task is parsed from its own bytes, read from the file at its offset, when it is read, and
+ * questions about status, priority and deadline are answered from the index records alone.</p>
+ *
+ * <p>Neither file is memory-mapped: a mapping stays in place until it is garbage collected, and
+ * while it does, Windows refuses to overwrite or delete the file. The JSON file is only held
+ * open until {@link #close()}, after which it can be saved over.</p>
+ *
+ * <p>The index header records the length and modification time of the JSON file; if the file was
+ * changed after the index was written, {@link #open(String)} refuses the index.</p>
+ */
+public class LazyTaskStore {
+    static final String INDEX_SUFFIX = ".idx";
+    private static final int MAGIC = 0x50544D49; // "PTMI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 28;
+    private static final int RECORD_BYTES = 26;
+
+    private final String path;
+    private final FileChannel json;
+    private final ByteBuffer index;
+    private final int size;
+    private final JsonTaskManager jsonTaskManager;
+
+    private LazyTaskStore(String path, FileChannel json, ByteBuffer index, int size) {
+        this.path = path;
+        this.json = json;
+        this.index = index;
+        this.size = size;
+        this.jsonTaskManager = new JsonTaskManager();
+    }
+
+    /**
+     * Opens a task file through its sidecar index.
+     *
+     * @param filePath The path to the JSON file (null or empty for the default file)
+     * @return The store, or null if there is no index or it does not match the file
+     */
+    public static LazyTaskStore open(String filePath) {
+        String path = (filePath != null && !filePath.isEmpty()) ? filePath : JsonTaskManager.DEFAULT_FILE_PATH;
+        File file = new File(path);
+        File indexFile = new File(path + INDEX_SUFFIX);
+        if (!file.exists() || !indexFile.exists()) {
+            return null;
+        }
+
+        try {
+            ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+            if (index.capacity() < HEADER_BYTES || index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+                System.err.println("Unsupported task index: " + indexFile);
+                return null;
+            }
+            int size = index.getInt(8);
+            if (index.getLong(12) != file.length() || index.getLong(20) != file.lastModified()
+                    || index.capacity() != HEADER_BYTES + (long) size * RECORD_BYTES) {
+                System.err.println("Task index is out of date: " + indexFile);
+                return null;
+            }
+            FileChannel json = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            return new LazyTaskStore(path, json, index, size);
+        } catch (IOException e) {
+            System.err.println("Error opening task index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index for a JSON file that was just written.
+     *
+     * @param filePath The path to the JSON file
+     * @param tasks    The tasks in the order they were written
+     * @param offsets  The byte offset of each task's object
+     * @param lengths  The byte length of each task's object
+     * @return true if the index was written, false otherwise
+     */
+    static boolean writeIndex(String filePath, List<Task> tasks, long[] offsets, int[] lengths) {
+        Integer[] order = new Integer[tasks.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(tasks.get(a).getId(), tasks.get(b).getId()));
+
+        File file = new File(filePath);
+        File indexFile = new File(filePath + INDEX_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tasks.size());
+            out.writeLong(file.length());
+            out.writeLong(file.lastModified());
+            for (int i : order) {
+                Task task = tasks.get(i);
+                out.writeInt(task.getId());
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+                out.writeLong(task.getDeadline().toEpochSecond(ZoneOffset.UTC));
+                out.writeByte(task.getStatus().ordinal());
+                out.writeByte(task.getPriority().ordinal());
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving task index: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the file.
+     *
+     * @return The number of tasks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the path of the JSON file.
+     *
+     * @return The path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the position of a task in the index.
+     *
+     * @param id The ID of the task
+     * @return The position, or -1 if the task is not in the file
+     */
+    public int indexOf(int id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = getIdAt(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the ID of the task at a position of the index. IDs increase with the position.
+     *
+     * @param position The position, from 0 to {@code size() - 1}
+     * @return The ID of the task
+     */
+    public int getIdAt(int position) {
+        return index.getInt(record(position));
+    }
+
+    public Task.Status getStatusAt(int position) {
+        return Task.Status.values()[index.get(record(position) + 24)];
+    }
+
+    public Task.Priority getPriorityAt(int position) {
+        return Task.Priority.values()[index.get(record(position) + 25)];
+    }
+
+    /**
+     * Returns the deadline of the task at a position, to the second.
+     *
+     * @param position The position, from 0 to {@code size() - 1}
+     * @return The deadline without its fraction of a second
+     */
+    public LocalDateTime getDeadlineAt(int position) {
+        return LocalDateTime.ofEpochSecond(index.getLong(record(position) + 16), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Finds the positions of the tasks matching conditions on status, priority and deadline,
+     * using only the index. The deadline check works to the second, so it can let through
+     * tasks up to one second outside the range but never misses one inside it.
+     *
+     * @param statuses   The allowed statuses (null for any)
+     * @param priorities The allowed priorities (null for any)
+     * @param from       The earliest deadline, inclusive (null for no lower bound)
+     * @param to         The latest deadline, exclusive (null for no upper bound)
+     * @return The positions of the matching tasks, in ascending ID order
+     */
+    public int[] findPositions(Set<Task.Status> statuses, Set<Task.Priority> priorities,
+                               LocalDateTime from, LocalDateTime to) {
+        long fromSecond = from != null ? from.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+        long toSecond = to != null ? to.toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+        Task.Status[] allStatuses = Task.Status.values();
+        Task.Priority[] allPriorities = Task.Priority.values();
+
+        int[] positions = new int[16];
+        int count = 0;
+        for (int position = 0; position < size; position++) {
+            int record = record(position);
+            long deadline = index.getLong(record + 16);
+            if (deadline < fromSecond || deadline > toSecond) {
+                continue;
+            }
+            if (statuses != null && !statuses.contains(allStatuses[index.get(record + 24)])) {
+                continue;
+            }
+            if (priorities != null && !priorities.contains(allPriorities[index.get(record + 25)])) {
+                continue;
+            }
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = position;
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Parses the task at a position of the index. Every call returns a new task object.
+     *
+     * @param position The position, from 0 to {@code size() - 1}
+     * @return The task, or null if its object cannot be read or parsed
+     */
+    public Task readTaskAt(int position) {
+        int record = record(position);
+        long offset = index.getLong(record + 4);
+        int length = index.getInt(record + 12);
+        byte[] bytes = new byte[length];
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (json.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("unexpected end of file");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading task " + getIdAt(position) + " from " + path + ": " + e.getMessage());
+            return null;
+        }
+        Task task = jsonTaskManager.parseTask(new String(bytes, Charset.defaultCharset()));
+        if (task != null && task.getId() != getIdAt(position)) {
+            // The index decides which task lives here; an object with another ID (or none) is damaged
+            System.err.println("Error reading task " + getIdAt(position) + " from " + path
+                    + ": the object has ID " + task.getId());
+            return null;
+        }
+        return task;
+    }
+
+    /**
+     * Closes the JSON file. Nothing of it stays open, so it can be overwritten or deleted afterwards.
+     */
+    public void close() {
+        try {
+            json.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static int record(int position) {
+        return HEADER_BYTES + position * RECORD_BYTES;
+    }
+}
@@ -1,3 +1,4 @@
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -11,6 +12,7 @@ import java.util.Scanner;
 public class Main {
     private static final Scanner scanner = new Scanner(System.in);
     private static final TaskManager taskManager = new TaskManager();
+    private static final QueryCache queryCache = new QueryCache(taskManager);
     private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     private static final JsonTaskManager jsonTaskManager = new JsonTaskManager();
@@ -18,6 +20,13 @@ public class Main {
     public static void main(String[] args) {
         boolean running = true;
 
+        // -Dmetrics.dumpSeconds=N switches on metrics and prints them to stderr every N seconds
+        long dumpSeconds = Long.getLong("metrics.dumpSeconds", 0);
+        if (dumpSeconds > 0) {
+            MetricsRegistry.setEnabled(true);
+            MetricsRegistry.getDefault().startPeriodicDump(Duration.ofSeconds(dumpSeconds), System.err);
+        }
+
         System.out.println("Ласкаво просимо до Менеджера Завдань!");
 
         while (running) {
@@ -49,6 +58,9 @@ public class Main {
                 case 8:
                     loadTasksFromFile();
                     break;
+                case 9:
+                    manageDependencies();
+                    break;
                 case 0:
                     running = false;
                     System.out.println("Дякуємо за використання Менеджера Завдань. До побачення!");
@@ -74,6 +86,7 @@ public class Main {
         System.out.println("6. Сортувати завдання");
         System.out.println("7. Зберегти завдання у файл");
         System.out.println("8. Завантажити завдання з файлу");
+        System.out.println("9. Залежності між завданнями");
         System.out.println("0. Вихід");
         System.out.println("==============================");
     }
@@ -182,28 +195,27 @@ public class Main {
 
         System.out.println("Поточні деталі завдання:");
         System.out.println(task);
+        long version = task.getVersion();
 
         System.out.print("Введіть нову назву (або натисніть Enter, щоб залишити поточну): ");
         String title = scanner.nextLine().trim();
         if (title.isEmpty()) {
-            title = task.getTitle();
+            title = null;
         }
 
         System.out.print("Введіть новий опис (або натисніть Enter, щоб залишити поточний): ");
         String description = scanner.nextLine().trim();
         if (description.isEmpty()) {
-            description = task.getDescription();
+            description = null;
         }
 
-        LocalDateTime deadline;
+        LocalDateTime deadline = null;
         System.out.print("Оновити дедлайн? (т/н): ");
         if (scanner.nextLine().trim().equalsIgnoreCase("т")) {
             deadline = getDateTimeInput("Введіть новий дедлайн");
-        } else {
-            deadline = task.getDeadline();
         }
 
-        Task.Priority priority = task.getPriority();
+        Task.Priority priority = null;
         System.out.print("Оновити пріоритет? (т/н): ");
         if (scanner.nextLine().trim().equalsIgnoreCase("т")) {
             System.out.println("Виберіть новий рівень пріоритету:");
@@ -222,7 +234,7 @@ public class Main {
             }
         }
 
-        Task.Status status = task.getStatus();
+        Task.Status status = null;
         System.out.print("Оновити статус? (т/н): ");
         if (scanner.nextLine().trim().equalsIgnoreCase("т")) {
             System.out.println("Виберіть новий статус:");
@@ -241,10 +253,13 @@ public class Main {
             }
         }
 
-        boolean updated = taskManager.updateTask(id, title, description, deadline, priority, status);
+        // Only the changed fields are sent, and only if nobody else changed the task meanwhile
+        boolean updated = taskManager.compareAndUpdate(id, version, title, description, deadline, priority, status);
         if (updated) {
             System.out.println("Завдання успішно оновлено!");
             System.out.println(taskManager.getTaskById(id));
+        } else if (taskManager.getTaskById(id) != null) {
+            System.out.println("Завдання було змінено іншим користувачем. Перегляньте зміни та спробуйте ще раз.");
         } else {
             System.out.println("Не вдалося оновити завдання.");
         }
@@ -282,6 +297,84 @@ public class Main {
         }
     }
 
+    /**
+     * Adds, removes and shows dependencies between tasks.
+     */
+    private static void manageDependencies() {
+        System.out.println("\n----- Залежності між завданнями -----");
+        System.out.println("1. Додати залежність");
+        System.out.println("2. Видалити залежність");
+        System.out.println("3. Показати, чого чекає завдання");
+        System.out.println("4. Показати завдання, готові до виконання");
+        System.out.println("5. Показати критичний шлях до завдання");
+
+        int choice = getIntInput("Введіть ваш вибір (1-5): ");
+        switch (choice) {
+            case 1:
+                addDependency();
+                break;
+            case 2:
+                removeDependency();
+                break;
+            case 3:
+                printTasks(taskManager.getBlockers(getIntInput("Введіть ID завдання: ")),
+                        "Завдання ні на що не чекає.");
+                break;
+            case 4:
+                printTasks(taskManager.getReadyTasks(), "Немає завдань, готових до виконання.");
+                break;
+            case 5:
+                printTasks(taskManager.getCriticalPath(getIntInput("Введіть ID завдання: ")),
+                        "Завдання не знайдено.");
+                break;
+            default:
+                System.out.println("Невірний вибір.");
+        }
+    }
+
+    /**
+     * Makes a task wait for another one, based on user input.
+     */
+    private static void addDependency() {
+        int taskId = getIntInput("Введіть ID завдання, яке має чекати: ");
+        int blockerId = getIntInput("Введіть ID завдання, яке треба виконати спочатку: ");
+        if (taskManager.addDependency(taskId, blockerId)) {
+            System.out.println("Залежність успішно додано!");
+        } else {
+            System.out.println("Не вдалося додати залежність: завдання не знайдено, залежність уже є або утворила б цикл.");
+        }
+    }
+
+    /**
+     * Removes a dependency between two tasks, based on user input.
+     */
+    private static void removeDependency() {
+        int taskId = getIntInput("Введіть ID завдання, яке чекає: ");
+        int blockerId = getIntInput("Введіть ID завдання, на яке воно чекає: ");
+        if (taskManager.removeDependency(taskId, blockerId)) {
+            System.out.println("Залежність успішно видалено!");
+        } else {
+            System.out.println("Такої залежності немає.");
+        }
+    }
+
+    /**
+     * Prints a list of tasks, or a message if it is empty.
+     *
+     * @param tasks        The tasks to print
+     * @param emptyMessage The message to print if there are no tasks
+     */
+    private static void printTasks(List<Task> tasks, String emptyMessage) {
+        if (tasks.isEmpty()) {
+            System.out.println(emptyMessage);
+            return;
+        }
+        for (Task task : tasks) {
+            System.out.println(task);
+            System.out.println("--------------------");
+        }
+    }
+
     /**
      * Searches for tasks based on a keyword or specific fields.
      */
@@ -301,7 +394,7 @@ public class Main {
             System.out.print("Введіть ключове слово для пошуку: ");
             String keyword = scanner.nextLine().trim();
 
-            results = taskManager.searchTasks(keyword);
+            results = queryCache.searchTasks(keyword);
 
             if (results.isEmpty()) {
                 System.out.println("Не знайдено завдань, що відповідають '" + keyword + "'.");
@@ -351,7 +444,7 @@ public class Main {
                 }
             }
 
-            results = taskManager.searchTasksByFields(title, status, priority);
+            results = queryCache.searchTasksByFields(title, status, priority);
 
             if (results.isEmpty()) {
                 System.out.println("Не знайдено завдань, що відповідають заданим критеріям.");
@@ -412,7 +505,7 @@ public class Main {
         int orderChoice = getIntInput("Введіть ваш вибір (1-2): ");
         boolean ascending = orderChoice != 2;
 
-        List<Task> sortedTasks = taskManager.sortTasks(criteria, ascending);
+        List<Task> sortedTasks = queryCache.sortTasks(criteria, ascending);
 
         if (sortedTasks.isEmpty()) {
             System.out.println("Немає завдань для сортування.");
@@ -453,6 +546,7 @@ public class Main {
     private static void saveTasksToFile() {
         System.out.println("\n----- Збереження завдань у файл -----");
 
+        // Also reads the tasks still in a lazily opened file, which closes it before it may be saved over
         List<Task> tasks = taskManager.getAllTasks();
 
         if (tasks.isEmpty()) {
@@ -463,11 +557,14 @@ public class Main {
         System.out.print("Введіть шлях до файлу (або натисніть Enter для використання шляху за замовчуванням): ");
         String filePath = scanner.nextLine().trim();
 
+        System.out.print("Стиснути файл? (т/н): ");
+        boolean compress = scanner.nextLine().trim().equalsIgnoreCase("т");
+
         boolean success;
-        if (filePath.isEmpty()) {
-            success = jsonTaskManager.saveTasks(tasks);
+        if (compress) {
+            success = jsonTaskManager.saveTasksCompressed(tasks, filePath);
         } else {
-            success = jsonTaskManager.saveTasks(tasks, filePath);
+            success = jsonTaskManager.saveTasksWithIndex(tasks, filePath);
         }
 
         if (success) {
@@ -486,6 +583,21 @@ public class Main {
         System.out.print("Введіть шлях до файлу (або натисніть Enter для використання шляху за замовчуванням): ");
         String filePath = scanner.nextLine().trim();
 
+        // An empty list can take the file as is: tasks are then read from it on first use
+        if (taskManager.getTaskCount() == 0) {
+            LazyTaskStore store = LazyTaskStore.open(filePath);
+            if (store != null) {
+                System.out.println("Знайдено індекс " + store.size() + " завдань; завдання читатимуться з файлу за потреби.");
+                if (!confirmAdding()) {
+                    store.close();
+                    return;
+                }
+                int count = taskManager.attachLazyStore(store);
+                System.out.println("Завдання успішно додано до поточного списку (" + count + ").");
+                return;
+            }
+        }
+
         List<Task> loadedTasks;
         if (filePath.isEmpty()) {
             loadedTasks = jsonTaskManager.loadTasks();
@@ -499,21 +611,39 @@ public class Main {
         }
 
         System.out.println("Завантажено " + loadedTasks.size() + " завдань.");
-        System.out.print("Бажаєте додати завантажені завдання до поточного списку? (т/н): ");
-        String choice = scanner.nextLine().trim();
-
-        if (choice.equalsIgnoreCase("т")) {
-            for (Task task : loadedTasks) {
-                taskManager.createTask(
-                    task.getTitle(),
-                    task.getDescription(),
-                    task.getDeadline(),
-                    task.getPriority()
-                );
+        if (confirmAdding()) {
+            System.out.println("Що робити із завданнями, ID яких уже зайняті?");
+            System.out.println("1. Замінити наявні завдання");
+            System.out.println("2. Пропустити завантажені завдання");
+            System.out.println("3. Додати з новими ID");
+
+            TaskManager.MergePolicy policy;
+            while (true) {
+                int policyChoice = getIntInput("Введіть ваш вибір (1-3): ");
+                if (policyChoice >= 1 && policyChoice <= 3) {
+                    policy = TaskManager.MergePolicy.values()[policyChoice - 1];
+                    break;
+                } else {
+                    System.out.println("Невірний вибір. Будь ласка, введіть число від 1 до 3.");
+                }
             }
-            System.out.println("Завдання успішно додано до поточного списку.");
-        } else {
-            System.out.println("Завантаження скасовано.");
+
+            int imported = taskManager.importTasks(loadedTasks, policy);
+            System.out.println("Завдання успішно додано до поточного списку (" + imported + ").");
+        }
+    }
+
+    /**
+     * Asks whether the loaded tasks should be added to the current list.
+     *
+     * @return true if the user confirmed, false if the loading was cancelled
+     */
+    private static boolean confirmAdding() {
+        System.out.print("Бажаєте додати завантажені завдання до поточного списку? (т/н): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("т")) {
+            return true;
         }
+        System.out.println("Завантаження скасовано.");
+        return false;
     }
 }
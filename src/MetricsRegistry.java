@@ -0,0 +1,211 @@
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lightweight in-process registry of named counters and latency histograms.
+ * Counters are {@link LongAdder}s and histograms are {@link LatencyHistogram}s, so
+ * recording never takes a lock. Recording is switched off by default; while it is off,
+ * instrumented code only pays for one volatile read per operation.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static volatile boolean enabled;
+
+    private final Map<String, LongAdder> counters;
+    private final Map<String, LatencyHistogram> histograms;
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Creates an empty registry.
+     */
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the registry used by the task manager classes.
+     *
+     * @return The process-wide registry
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns whether metrics are being recorded.
+     *
+     * @return true if recording is on
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches recording on or off for the whole process.
+     *
+     * @param value true to record metrics
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Returns the counter with the specified name, creating it if needed.
+     *
+     * @param name The name of the counter
+     * @return The counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns the latency histogram with the specified name, creating it if needed.
+     *
+     * @param name The name of the histogram
+     * @return The histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Returns the current value of every counter, sorted by name.
+     *
+     * @return The counter values
+     */
+    public Map<String, Long> getCounterSnapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a summary of every histogram, sorted by name.
+     *
+     * @return The histogram summaries
+     */
+    public Map<String, HistogramSummary> getHistogramSnapshot() {
+        Map<String, HistogramSummary> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            snapshot.put(entry.getKey(), new HistogramSummary(entry.getValue()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Resets all counters and histograms to zero.
+     */
+    public void reset() {
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes all counters and histogram summaries as text.
+     *
+     * @param out The stream to write to
+     */
+    public void dump(PrintStream out) {
+        StringBuilder text = new StringBuilder("----- metrics -----\n");
+        for (Map.Entry<String, Long> entry : getCounterSnapshot().entrySet()) {
+            text.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, HistogramSummary> entry : getHistogramSnapshot().entrySet()) {
+            text.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        out.print(text);
+    }
+
+    /**
+     * Starts dumping the metrics at a fixed interval on a background thread.
+     *
+     * @param interval The time between dumps
+     * @param out      The stream to write to
+     */
+    public synchronized void startPeriodicDump(Duration interval, PrintStream out) {
+        stopPeriodicDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(out), interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if it is running.
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /**
+     * A point-in-time summary of a latency histogram.
+     */
+    public static class HistogramSummary {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        HistogramSummary(LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.mean = histogram.getMean();
+            this.p50 = histogram.getValueAtPercentile(50);
+            this.p99 = histogram.getValueAtPercentile(99);
+            this.p999 = histogram.getValueAtPercentile(99.9);
+            this.max = histogram.getMax();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "count=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns",
+                    count, mean, p50, p99, p999, max);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One entry of the replicated mutation log: a create, update or delete of a single task.
+ * Creates and updates carry the full state of the task after the change, including the IDs
+ * of the tasks it waits for, so applying
+ * the same sequence of records to an empty {@link TaskManager} reproduces the original.
+ */
+public class MutationRecord {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /**
+     * Kinds of mutations.
+     */
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final int taskId;
+    private final String title;
+    private final String description;
+    private final LocalDateTime deadline;
+    private final Task.Priority priority;
+    private final Task.Status status;
+    private final int[] blockerIds;
+    private final long version;
+
+    /**
+     * Creates a record describing a change to a task.
+     *
+     * @param sequence The position of the record in the log, starting at 1
+     * @param type     The kind of mutation
+     * @param task     The task after the change
+     */
+    public MutationRecord(long sequence, Type type, Task task) {
+        this(sequence, type, task.getId(), task.getTitle(), task.getDescription(), task.getDeadline(),
+                task.getPriority(), task.getStatus(), task.getBlockerIds(), task.getVersion());
+    }
+
+    private MutationRecord(long sequence, Type type, int taskId, String title, String description,
+                           LocalDateTime deadline, Task.Priority priority, Task.Status status, int[] blockerIds,
+                           long version) {
+        this.sequence = sequence;
+        this.type = type;
+        this.taskId = taskId;
+        this.title = title;
+        this.description = description;
+        this.deadline = deadline;
+        this.priority = priority;
+        this.status = status;
+        this.blockerIds = blockerIds;
+        this.version = version;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * Applies this mutation to a task manager. Creates and updates set the recorded state
+     * and version directly, so the task ends up with the same version as on the leader.
+     *
+     * @param taskManager The task manager to change
+     * @return true if the mutation was applied, false if it did not match the manager's state
+     */
+    public boolean applyTo(TaskManager taskManager) {
+        switch (type) {
+            case CREATE:
+            case UPDATE:
+                Task replica = new Task(taskId, title, description, deadline, priority);
+                replica.setStatus(status);
+                replica.setBlockerIds(blockerIds);
+                replica.setVersion(version);
+                return taskManager.applyReplica(replica, type == Type.CREATE);
+            case DELETE:
+                return taskManager.deleteTask(taskId);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Writes this record in the binary wire format.
+     *
+     * @param out The stream to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type.ordinal());
+        out.writeInt(taskId);
+        if (type == Type.DELETE) {
+            return;
+        }
+        out.writeLong(version);
+        writeString(out, title);
+        writeString(out, description);
+        writeString(out, deadline != null ? deadline.format(DATE_FORMATTER) : null);
+        out.writeByte(priority.ordinal());
+        out.writeByte(status.ordinal());
+        writeIds(out, blockerIds);
+    }
+
+    /**
+     * Reads a record written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param in The stream to read from
+     * @return The record
+     * @throws IOException If reading fails
+     */
+    public static MutationRecord readFrom(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        Type type = Type.values()[in.readByte()];
+        int taskId = in.readInt();
+        if (type == Type.DELETE) {
+            return new MutationRecord(sequence, type, taskId, null, null, null, null, null, null, 0);
+        }
+        long version = in.readLong();
+        String title = readString(in);
+        String description = readString(in);
+        String deadline = readString(in);
+        Task.Priority priority = Task.Priority.values()[in.readByte()];
+        Task.Status status = Task.Status.values()[in.readByte()];
+        int[] blockerIds = readIds(in);
+        return new MutationRecord(sequence, type, taskId, title, description,
+                deadline != null ? LocalDateTime.parse(deadline, DATE_FORMATTER) : null, priority, status,
+                blockerIds, version);
+    }
+
+    /**
+     * Writes an array of task IDs, prefixed with its length.
+     */
+    static void writeIds(DataOutputStream out, int[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (int id : ids) {
+            out.writeInt(id);
+        }
+    }
+
+    /**
+     * Reads an array written by {@link #writeIds(DataOutputStream, int[])}.
+     */
+    static int[] readIds(DataInputStream in) throws IOException {
+        int[] ids = new int[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readInt();
+        }
+        return ids;
+    }
+
+    /**
+     * Writes a nullable string as a length-prefixed UTF-8 byte sequence.
+     * Unlike {@code writeUTF}, this has no 64 KB limit.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
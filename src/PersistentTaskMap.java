@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable map from task ID to {@link TaskRecord} with structural sharing.
+ * The map is a bitmap-compressed radix trie over the 32 bits of the ID, five bits per level.
+ * {@link #put(TaskRecord)} and {@link #remove(int)} return a new map that shares every
+ * untouched node with the old one, so an update copies at most seven small nodes and
+ * any number of old versions can be read concurrently without locking.
+ * Iteration visits records in ascending ID order.
+ */
+public final class PersistentTaskMap implements Iterable<TaskRecord> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int TOP_SHIFT = 30;
+    private static final PersistentTaskMap EMPTY = new PersistentTaskMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentTaskMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @return A map without any records
+     */
+    public static PersistentTaskMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of records in the map.
+     *
+     * @return The number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the record for a task ID.
+     *
+     * @param id The ID of the task
+     * @return The record, or null if the map has no record for this ID
+     */
+    public TaskRecord get(int id) {
+        Node node = root;
+        for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+            int bit = 1 << ((id >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (shift == 0) {
+                return (TaskRecord) child;
+            }
+            node = (Node) child;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a map that also contains the record, replacing any record with the same ID.
+     *
+     * @param record The record to add
+     * @return The new map; this map is unchanged
+     */
+    public PersistentTaskMap put(TaskRecord record) {
+        boolean[] added = new boolean[1];
+        Node newRoot = put(root, TOP_SHIFT, record, added);
+        return new PersistentTaskMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the record for a task ID.
+     *
+     * @param id The ID of the task to remove
+     * @return The new map, or this map if it has no record for the ID
+     */
+    public PersistentTaskMap remove(int id) {
+        if (get(id) == null) {
+            return this;
+        }
+        return new PersistentTaskMap(remove(root, TOP_SHIFT, id), size - 1);
+    }
+
+    /**
+     * Copies the records into a list in ascending ID order.
+     *
+     * @return A new list with all records
+     */
+    public List<TaskRecord> toList() {
+        List<TaskRecord> records = new ArrayList<>(size);
+        for (TaskRecord record : this) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Override
+    public Iterator<TaskRecord> iterator() {
+        return new RecordIterator(root);
+    }
+
+    private static Node put(Node node, int shift, TaskRecord record, boolean[] added) {
+        int bit = 1 << ((record.getId() >>> shift) & MASK);
+        int bitmap = node != null ? node.bitmap : 0;
+        Object[] children = node != null ? node.children : new Object[0];
+        int index = Integer.bitCount(bitmap & (bit - 1));
+
+        if ((bitmap & bit) != 0) {
+            Object[] copy = children.clone();
+            if (shift == 0) {
+                copy[index] = record;
+            } else {
+                copy[index] = put((Node) children[index], shift - BITS, record, added);
+            }
+            return new Node(bitmap, copy);
+        }
+
+        added[0] = true;
+        Object[] copy = new Object[children.length + 1];
+        System.arraycopy(children, 0, copy, 0, index);
+        System.arraycopy(children, index, copy, index + 1, children.length - index);
+        copy[index] = shift == 0 ? record : put(null, shift - BITS, record, added);
+        return new Node(bitmap | bit, copy);
+    }
+
+    private static Node remove(Node node, int shift, int id) {
+        int bit = 1 << ((id >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if (shift != 0) {
+            Node child = remove((Node) node.children[index], shift - BITS, id);
+            if (child != null) {
+                Object[] copy = node.children.clone();
+                copy[index] = child;
+                return new Node(node.bitmap, copy);
+            }
+        }
+
+        // The slot becomes empty: drop it, and drop this node too if it was the last one
+        if (node.children.length == 1) {
+            return null;
+        }
+        Object[] copy = new Object[node.children.length - 1];
+        System.arraycopy(node.children, 0, copy, 0, index);
+        System.arraycopy(node.children, index + 1, copy, index, copy.length - index);
+        return new Node(node.bitmap & ~bit, copy);
+    }
+
+    /**
+     * An inner node: a bitmap of occupied slots and one child per set bit.
+     * Children are nodes, except on the last level where they are records.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] children;
+
+        Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Depth-first iterator that walks the trie in slot order, which is ascending ID order.
+     */
+    private static final class RecordIterator implements Iterator<TaskRecord> {
+        private final Object[][] stack = new Object[7][];
+        private final int[] positions = new int[7];
+        private int depth;
+        private TaskRecord next;
+
+        RecordIterator(Node root) {
+            depth = -1;
+            if (root != null) {
+                depth = 0;
+                stack[0] = root.children;
+                positions[0] = 0;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public TaskRecord next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            TaskRecord record = next;
+            advance();
+            return record;
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                if (positions[depth] >= stack[depth].length) {
+                    depth--;
+                    continue;
+                }
+                Object child = stack[depth][positions[depth]++];
+                if (child instanceof TaskRecord) {
+                    next = (TaskRecord) child;
+                    return;
+                }
+                depth++;
+                stack[depth] = ((Node) child).children;
+                positions[depth] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of repeated searches and sorts in front of a {@link TaskManager}.
+ *
+ * <p>Every entry remembers the {@link TaskManager#getGeneration() generation} it was computed at.
+ * Any create, update or delete moves the generation on, so all older entries become stale at once
+ * without walking the cache; a stale entry is dropped when it is next looked up or evicted.
+ * The cache is bounded both by the number of entries and by an estimate of the memory the cached
+ * result lists take, and evicts the least recently used entries first.</p>
+ *
+ * <p>Callers get their own copy of a cached list, so changing it does not affect the cache.
+ * Changes made directly through the setters of {@link Task} do not move the generation.</p>
+ *
+ * <p>The cache listens to its task manager and empties itself when tasks are moved to the cold
+ * tier, so cached results do not keep the evicted task objects in memory.</p>
+ */
+public class QueryCache implements TaskListener {
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    private static final long REFERENCE_BYTES = 8;
+
+    private final TaskManager taskManager;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * A cached result and the generation it belongs to.
+     */
+    private static final class Entry {
+        private final long generation;
+        private final List<Task> result;
+        private final long bytes;
+
+        Entry(long generation, List<Task> result, long bytes) {
+            this.generation = generation;
+            this.result = result;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Creates a cache with room for {@value #DEFAULT_MAX_ENTRIES} results and about 32 MB.
+     *
+     * @param taskManager The task manager whose results are cached
+     */
+    public QueryCache(TaskManager taskManager) {
+        this(taskManager, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache with the specified bounds.
+     *
+     * @param taskManager The task manager whose results are cached
+     * @param maxEntries  The maximum number of cached results
+     * @param maxBytes    The maximum estimated size of all cached results in bytes
+     */
+    public QueryCache(TaskManager taskManager, int maxEntries, long maxBytes) {
+        this.taskManager = taskManager;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        taskManager.addListener(this);
+    }
+
+    /**
+     * Cached version of {@link TaskManager#searchTasks(String)}.
+     *
+     * @param keyword The keyword to search for
+     * @return A list of tasks matching the search criteria
+     */
+    public List<Task> searchTasks(String keyword) {
+        return get("search\u0000" + keyword.toLowerCase(), () -> taskManager.searchTasks(keyword));
+    }
+
+    /**
+     * Cached version of {@link TaskManager#searchTasksByFields(String, Task.Status, Task.Priority)}.
+     *
+     * @param title The title to search for (can be null or empty to ignore this field)
+     * @param status The status to search for (can be null to ignore this field)
+     * @param priority The priority to search for (can be null to ignore this field)
+     * @return A list of tasks matching the search criteria
+     */
+    public List<Task> searchTasksByFields(String title, Task.Status status, Task.Priority priority) {
+        String key = "fields\u0000" + (title == null ? "" : title.toLowerCase()) + "\u0000" + status + "\u0000" + priority;
+        return get(key, () -> taskManager.searchTasksByFields(title, status, priority));
+    }
+
+    /**
+     * Cached version of {@link TaskManager#sortTasks(String, boolean)}.
+     *
+     * @param criteria The criteria to sort by (e.g., "deadline", "priority", "status")
+     * @param ascending Whether to sort in ascending order
+     * @return A sorted list of tasks
+     */
+    public List<Task> sortTasks(String criteria, boolean ascending) {
+        return get("sort\u0000" + criteria.toLowerCase() + "\u0000" + ascending,
+                () -> taskManager.sortTasks(criteria, ascending));
+    }
+
+    /**
+     * Cached version of {@link TaskManager#query(TaskQuery)}.
+     * The query is copied into the cache key, so changing it afterwards is safe.
+     *
+     * @param query The query to run
+     * @return The matching tasks
+     */
+    public List<Task> query(TaskQuery query) {
+        LocalDateTime from = query.getDeadlineFrom();
+        LocalDateTime to = query.getDeadlineTo();
+        String key = "query\u0000" + query.getKeyword() + "\u0000" + query.getStatuses() + "\u0000"
+                + query.getPriorities() + "\u0000" + from + "\u0000" + to + "\u0000" + query.getOrderBy()
+                + "\u0000" + query.isAscending() + "\u0000" + query.getLimit();
+        return get(key, () -> taskManager.query(query));
+    }
+
+    /**
+     * Removes all entries. The statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Drops every entry, as all of them are stale once tasks have been evicted and the entries
+     * could hold the evicted tasks. Later evictions of the same batch find the cache empty.
+     *
+     * @param task The evicted task
+     */
+    @Override
+    public synchronized void onTaskEvicted(Task task) {
+        invalidations += entries.size();
+        clear();
+    }
+
+    /**
+     * Returns the number of cached results, including stale ones not dropped yet.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated size of all cached results.
+     *
+     * @return The estimated size in bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the bounds.
+     *
+     * @return The number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of stale entries dropped because the tasks changed after they were cached.
+     *
+     * @return The number of invalidated entries
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the share of lookups that were answered from the cache.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("QueryCache[entries=%d, bytes=%d, hits=%d, misses=%d, hitRate=%.1f%%, "
+                        + "evictions=%d, invalidations=%d]",
+                entries.size(), bytes, hits, misses, getHitRate() * 100, evictions, invalidations);
+    }
+
+    /**
+     * Returns a copy of the cached result for a key, computing and caching it if it is missing or stale.
+     */
+    private List<Task> get(String key, Supplier<List<Task>> compute) {
+        // Read the generation first, so a change made while computing leaves the entry stale
+        long generation = taskManager.getGeneration();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.generation == generation) {
+                    hits++;
+                    return new ArrayList<>(entry.result);
+                }
+                remove(key, entry);
+                invalidations++;
+            }
+            misses++;
+        }
+
+        List<Task> result = compute.get();
+        long size = ENTRY_OVERHEAD_BYTES + 2L * key.length() + REFERENCE_BYTES * result.size();
+        if (size <= maxBytes) {
+            synchronized (this) {
+                Entry previous = entries.put(key, new Entry(generation, new ArrayList<>(result), size));
+                if (previous != null) {
+                    bytes -= previous.bytes;
+                }
+                bytes += size;
+                evict();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops least recently used entries until the cache is within its bounds.
+     * Stale entries met on the way count as invalidations rather than evictions.
+     */
+    private void evict() {
+        long generation = taskManager.getGeneration();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            bytes -= entry.bytes;
+            if (entry.generation == generation) {
+                evictions++;
+            } else {
+                invalidations++;
+            }
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.bytes;
+    }
+}
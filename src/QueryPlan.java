@@ -0,0 +1,156 @@
+import java.util.List;
+
+/**
+ * The plan chosen for a {@link TaskQuery} together with what happened when it ran,
+ * as returned by {@link TaskManager#explain(TaskQuery)}.
+ * {@link #toString()} prints the plan as an indented tree, innermost step last.
+ */
+public class QueryPlan {
+
+    /**
+     * Where the candidate tasks come from.
+     */
+    public enum AccessPath {
+        /** Every task is checked. */
+        FULL_SCAN,
+        /** Only tasks with the requested statuses are checked. */
+        STATUS_INDEX,
+        /** Only tasks with the requested priorities are checked. */
+        PRIORITY_INDEX,
+        /** Only tasks in the requested deadline range are checked. */
+        DEADLINE_RANGE,
+        /** Tasks are read in deadline order and reading stops once the limit is reached. */
+        DEADLINE_ORDER
+    }
+
+    /**
+     * How the results are ordered and cut to the limit.
+     */
+    public enum SortStrategy {
+        /** No order requested; reading stops once the limit is reached. */
+        NONE,
+        /** The access path already delivers the requested order. */
+        INDEX_ORDER,
+        /** Only the best {@code limit} tasks are kept in a bounded heap. */
+        TOP_K,
+        /** All matching tasks are sorted. */
+        FULL_SORT
+    }
+
+    private final TaskQuery query;
+    private final AccessPath accessPath;
+    private final SortStrategy sortStrategy;
+    private final long estimatedScanned;
+    private final long estimatedMatched;
+    private final long scanned;
+    private final long matched;
+    private final long elapsedNanos;
+    private final List<Task> results;
+
+    QueryPlan(TaskQuery query, AccessPath accessPath, SortStrategy sortStrategy, long estimatedScanned,
+              long estimatedMatched, long scanned, long matched, long elapsedNanos, List<Task> results) {
+        this.query = query;
+        this.accessPath = accessPath;
+        this.sortStrategy = sortStrategy;
+        this.estimatedScanned = estimatedScanned;
+        this.estimatedMatched = estimatedMatched;
+        this.scanned = scanned;
+        this.matched = matched;
+        this.elapsedNanos = elapsedNanos;
+        this.results = results;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    public SortStrategy getSortStrategy() {
+        return sortStrategy;
+    }
+
+    /**
+     * Returns how many tasks the planner expected the access path to produce.
+     *
+     * @return The estimated number of candidate tasks
+     */
+    public long getEstimatedScanned() {
+        return estimatedScanned;
+    }
+
+    /**
+     * Returns how many tasks the planner expected to match all conditions.
+     *
+     * @return The estimated number of matching tasks
+     */
+    public long getEstimatedMatched() {
+        return estimatedMatched;
+    }
+
+    /**
+     * Returns how many candidate tasks were actually checked.
+     *
+     * @return The number of checked tasks
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Returns how many checked tasks matched all conditions.
+     * With an early stop this is at most the limit.
+     *
+     * @return The number of matching tasks seen
+     */
+    public long getMatched() {
+        return matched;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public List<Task> getResults() {
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder plan = new StringBuilder();
+        String indent = "";
+        if (query.getLimit() >= 0) {
+            plan.append("Limit ").append(query.getLimit())
+                    .append(" (rows ").append(results.size()).append(")\n");
+            indent += "  ";
+        }
+        if (sortStrategy == SortStrategy.TOP_K || sortStrategy == SortStrategy.FULL_SORT) {
+            plan.append(indent).append(sortStrategy == SortStrategy.TOP_K ? "Top-K sort" : "Sort")
+                    .append(" by ").append(query.getOrderBy()).append(query.isAscending() ? " asc" : " desc")
+                    .append('\n');
+            indent += "  ";
+        }
+        plan.append(indent).append("Filter: ").append(query)
+                .append(" (estimated rows ").append(estimatedMatched)
+                .append(", actual rows ").append(matched).append(")\n");
+        indent += "  ";
+        plan.append(indent).append(describeAccessPath())
+                .append(" (estimated rows ").append(estimatedScanned)
+                .append(", actual rows ").append(scanned).append(")\n");
+        plan.append(String.format("Execution time: %.3f ms", elapsedNanos / 1_000_000.0));
+        return plan.toString();
+    }
+
+    private String describeAccessPath() {
+        switch (accessPath) {
+            case STATUS_INDEX:
+                return "Index scan on status " + query.getStatuses();
+            case PRIORITY_INDEX:
+                return "Index scan on priority " + query.getPriorities();
+            case DEADLINE_RANGE:
+                return "Index range scan on deadline";
+            case DEADLINE_ORDER:
+                return "Ordered index scan on deadline " + (query.isAscending() ? "asc" : "desc");
+            default:
+                return "Full scan";
+        }
+    }
+}
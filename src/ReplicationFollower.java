@@ -0,0 +1,195 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps a local copy of a leader's tasks by applying its replicated mutation log.
+ * The follower connects to a {@link ReplicationLeader}, catches up from a snapshot if needed,
+ * then applies batches of mutation records as they arrive. Reads are served locally.
+ * If the connection drops, the follower reconnects and resumes from the last applied record.
+ * Its position is the leader's epoch together with the last applied sequence number,
+ * so after the leader restarts the follower is caught up from a fresh snapshot.
+ */
+public class ReplicationFollower {
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private final TaskManager taskManager;
+    private final JsonTaskManager jsonTaskManager;
+    private volatile long leaderEpoch;
+    private volatile long appliedSequence;
+    private volatile long leaderSequence;
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread worker;
+
+    /**
+     * Creates a follower of the leader at the specified address.
+     *
+     * @param host The leader's host name
+     * @param port The leader's replication port
+     */
+    public ReplicationFollower(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.taskManager = new TaskManager();
+        this.jsonTaskManager = new JsonTaskManager();
+        this.leaderEpoch = ReplicationLeader.NO_EPOCH;
+    }
+
+    /**
+     * Starts replicating in a background thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::replicate, "replication-follower");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Runs a read against the local copy of the tasks.
+     * The operation sees a state that matches some prefix of the leader's log.
+     *
+     * @param operation The read to run
+     * @param <T>       The result type
+     * @return The result of the operation
+     */
+    public <T> T read(Function<TaskManager, T> operation) {
+        synchronized (taskManager) {
+            return operation.apply(taskManager);
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last applied mutation.
+     *
+     * @return The applied sequence number
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Returns the epoch of the leader run the applied sequence number belongs to.
+     *
+     * @return The leader's epoch, or {@link ReplicationLeader#NO_EPOCH} before the first snapshot
+     */
+    public long getLeaderEpoch() {
+        return leaderEpoch;
+    }
+
+    /**
+     * Returns how many mutations the leader had logged that this follower has not applied yet,
+     * as of the last frame received.
+     *
+     * @return The replication lag in records
+     */
+    public long getLag() {
+        return Math.max(0, leaderSequence - appliedSequence);
+    }
+
+    /**
+     * Stops replicating and closes the connection.
+     */
+    public void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void replicate() {
+        while (running) {
+            try (Socket connection = new Socket(host, port)) {
+                socket = connection;
+                connection.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+
+                out.writeLong(leaderEpoch);
+                out.writeLong(appliedSequence);
+                out.flush();
+
+                while (running) {
+                    byte frame = in.readByte();
+                    if (frame == ReplicationLeader.FRAME_SNAPSHOT) {
+                        long epoch = in.readLong();
+                        long sequence = in.readLong();
+                        String snapshot = MutationRecord.readString(in);
+                        Map<Integer, Long> versions = new HashMap<>();
+                        int count = in.readInt();
+                        for (int i = 0; i < count; i++) {
+                            versions.put(in.readInt(), in.readLong());
+                        }
+                        installSnapshot(jsonTaskManager.fromJson(snapshot), versions);
+                        leaderEpoch = epoch;
+                        appliedSequence = sequence;
+                        leaderSequence = sequence;
+                    } else if (frame == ReplicationLeader.FRAME_BATCH) {
+                        leaderSequence = in.readLong();
+                        int count = in.readInt();
+                        synchronized (taskManager) {
+                            for (int i = 0; i < count; i++) {
+                                MutationRecord record = MutationRecord.readFrom(in);
+                                record.applyTo(taskManager);
+                                appliedSequence = record.getSequence();
+                            }
+                        }
+                    } else {
+                        throw new IOException("Unknown replication frame: " + frame);
+                    }
+                    out.writeLong(appliedSequence);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Replication connection lost: " + e.getMessage());
+                    try {
+                        Thread.sleep(RECONNECT_DELAY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the local tasks with the tasks of a snapshot.
+     *
+     * @param tasks    The tasks of the snapshot, with their original IDs
+     * @param versions The leader's version of each task, by ID
+     */
+    private void installSnapshot(List<Task> tasks, Map<Integer, Long> versions) {
+        for (Task task : tasks) {
+            task.setVersion(versions.getOrDefault(task.getId(), 0L));
+        }
+        synchronized (taskManager) {
+            for (Task task : taskManager.getAllTasks()) {
+                taskManager.deleteTask(task.getId());
+            }
+            taskManager.importTasks(tasks, TaskManager.MergePolicy.REPLACE);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Ships every mutation of a {@link TaskManager} to followers over TCP.
+ * Mutations are recorded in an ordered in-memory log. Each follower gets its own
+ * sender thread that streams the log in batches without waiting for acknowledgements,
+ * and acknowledgements are read on a separate thread to track how far behind each follower is.
+ * A follower that is too far behind (or new) first receives a JSON snapshot, then the log tail.
+ *
+ * <p>Sequence numbers only mean something within one run of a leader, so every leader picks a
+ * random epoch when it is created. Followers present the epoch of the snapshot they started from
+ * along with their position, and a follower from another epoch (one that was following a leader
+ * that has since restarted) always starts over from a snapshot, even if its position happens to
+ * fall inside the new leader's log.</p>
+ *
+ * <p>All writes to the leader's task manager must go through {@link #execute(Function)}, so that
+ * snapshots and log records stay consistent with each other.</p>
+ */
+public class ReplicationLeader implements TaskListener {
+    static final byte FRAME_SNAPSHOT = 'S';
+    static final byte FRAME_BATCH = 'B';
+    private static final int DEFAULT_MAX_LOG_SIZE = 100_000;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final long HEARTBEAT_MILLIS = 1000;
+    /** The epoch of a follower that has not received a snapshot yet; no leader uses it */
+    static final long NO_EPOCH = 0;
+
+    private final TaskManager taskManager;
+    private final JsonTaskManager jsonTaskManager;
+    private final int port;
+    private final int maxLogSize;
+    private final int maxBatchSize;
+    private final long epoch;
+    private final List<MutationRecord> log;
+    private final List<FollowerSession> sessions;
+    private long logStartSequence;
+    private long headSequence;
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * Creates a leader for the specified task manager.
+     *
+     * @param taskManager The task manager whose mutations are replicated
+     * @param port        The TCP port to listen on, or 0 to pick a free port
+     */
+    public ReplicationLeader(TaskManager taskManager, int port) {
+        this(taskManager, port, DEFAULT_MAX_LOG_SIZE, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a leader with custom log retention and batch size.
+     *
+     * @param taskManager  The task manager whose mutations are replicated
+     * @param port         The TCP port to listen on, or 0 to pick a free port
+     * @param maxLogSize   How many records to keep for followers that reconnect
+     * @param maxBatchSize The maximum number of records sent in one frame
+     */
+    public ReplicationLeader(TaskManager taskManager, int port, int maxLogSize, int maxBatchSize) {
+        this.taskManager = taskManager;
+        this.jsonTaskManager = new JsonTaskManager();
+        this.port = port;
+        this.maxLogSize = maxLogSize;
+        this.maxBatchSize = maxBatchSize;
+        long random;
+        do {
+            random = ThreadLocalRandom.current().nextLong();
+        } while (random == NO_EPOCH);
+        this.epoch = random;
+        this.log = new ArrayList<>();
+        this.sessions = new CopyOnWriteArrayList<>();
+        this.logStartSequence = 1;
+        this.headSequence = 0;
+        taskManager.addListener(this);
+    }
+
+    /**
+     * Starts listening for followers.
+     *
+     * @throws IOException If the server socket cannot be opened
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverSocket = new ServerSocket(port);
+        running = true;
+        Thread acceptor = new Thread(this::acceptFollowers, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port the leader listens on.
+     *
+     * @return The local port, or -1 if the leader has not been started
+     */
+    public synchronized int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Runs a read or write against the leader's task manager.
+     *
+     * @param operation The operation to run
+     * @param <T>       The result type
+     * @return The result of the operation
+     */
+    public synchronized <T> T execute(Function<TaskManager, T> operation) {
+        return operation.apply(taskManager);
+    }
+
+    /**
+     * Returns the epoch of this leader, which tells its sequence numbers apart from those
+     * of earlier runs.
+     *
+     * @return The epoch, never {@link #NO_EPOCH}
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the sequence number of the last mutation in the log.
+     *
+     * @return The head sequence number, or 0 if nothing has been logged yet
+     */
+    public synchronized long getHeadSequence() {
+        return headSequence;
+    }
+
+    /**
+     * Returns how many records each connected follower has not acknowledged yet.
+     *
+     * @return The lag of each follower, keyed by its remote address
+     */
+    public synchronized Map<String, Long> getFollowerLag() {
+        Map<String, Long> lag = new LinkedHashMap<>();
+        for (FollowerSession session : sessions) {
+            lag.put(session.name, headSequence - session.acknowledged);
+        }
+        return lag;
+    }
+
+    /**
+     * Stops accepting followers and disconnects the connected ones.
+     */
+    public void close() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing replication socket: " + e.getMessage());
+        }
+        for (FollowerSession session : sessions) {
+            session.close();
+        }
+        taskManager.removeListener(this);
+    }
+
+    @Override
+    public void onTaskCreated(Task task) {
+        append(MutationRecord.Type.CREATE, task);
+    }
+
+    @Override
+    public void onTaskUpdated(Task task) {
+        append(MutationRecord.Type.UPDATE, task);
+    }
+
+    @Override
+    public void onTaskDeleted(Task task) {
+        append(MutationRecord.Type.DELETE, task);
+    }
+
+    /**
+     * Appends a record to the log and wakes up the sender threads.
+     * Once the log exceeds its limit, the oldest half is dropped.
+     */
+    private synchronized void append(MutationRecord.Type type, Task task) {
+        headSequence++;
+        log.add(new MutationRecord(headSequence, type, task));
+        if (log.size() > maxLogSize) {
+            int dropped = log.size() / 2;
+            log.subList(0, dropped).clear();
+            logStartSequence += dropped;
+        }
+        notifyAll();
+    }
+
+    private void acceptFollowers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                FollowerSession session = new FollowerSession(socket);
+                sessions.add(session);
+                Thread sender = new Thread(session::run, "replication-sender-" + session.name);
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error accepting follower: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The connection to one follower.
+     */
+    private class FollowerSession {
+        private final Socket socket;
+        private final String name;
+        private volatile long acknowledged;
+
+        FollowerSession(Socket socket) {
+            this.socket = socket;
+            this.name = socket.getRemoteSocketAddress().toString();
+        }
+
+        void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                long followerEpoch = in.readLong();
+                long next = in.readLong() + 1;
+                acknowledged = next - 1;
+                // A fresh follower may be missing tasks that existed before the log started,
+                // and the position of a follower of another epoch says nothing about this log
+                boolean needsSnapshot = next == 1 || followerEpoch != epoch;
+                Thread ackReader = new Thread(() -> readAcknowledgements(in), "replication-acks-" + name);
+                ackReader.setDaemon(true);
+                ackReader.start();
+
+                while (running) {
+                    List<MutationRecord> batch = new ArrayList<>();
+                    List<TaskRecord> snapshot = null;
+                    long head;
+                    synchronized (ReplicationLeader.this) {
+                        if (needsSnapshot || next < logStartSequence || next > headSequence + 1) {
+                            // Too far behind, or from another epoch: start over from a snapshot.
+                            // Only the values are copied here; the JSON is built after the lock is released.
+                            List<Task> tasks = taskManager.getAllTasks();
+                            snapshot = new ArrayList<>(tasks.size());
+                            for (Task task : tasks) {
+                                snapshot.add(TaskRecord.of(task));
+                            }
+                            next = headSequence + 1;
+                            needsSnapshot = false;
+                        } else {
+                            if (next > headSequence) {
+                                ReplicationLeader.this.wait(HEARTBEAT_MILLIS);
+                            }
+                            int from = (int) (next - logStartSequence);
+                            int to = (int) Math.min(log.size(), Math.max(from, 0) + (long) maxBatchSize);
+                            if (from >= 0 && from < to) {
+                                batch.addAll(log.subList(from, to));
+                            }
+                        }
+                        head = headSequence;
+                    }
+
+                    if (snapshot != null) {
+                        List<Task> tasks = new ArrayList<>(snapshot.size());
+                        for (TaskRecord record : snapshot) {
+                            tasks.add(record.toTask());
+                        }
+                        out.writeByte(FRAME_SNAPSHOT);
+                        out.writeLong(epoch);
+                        out.writeLong(next - 1);
+                        MutationRecord.writeString(out, jsonTaskManager.toJson(tasks));
+                        // The JSON format has no versions, so they follow as (ID, version) pairs
+                        out.writeInt(tasks.size());
+                        for (Task task : tasks) {
+                            out.writeInt(task.getId());
+                            out.writeLong(task.getVersion());
+                        }
+                    } else {
+                        out.writeByte(FRAME_BATCH);
+                        out.writeLong(head);
+                        out.writeInt(batch.size());
+                        for (MutationRecord record : batch) {
+                            record.writeTo(out);
+                        }
+                        next += batch.size();
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Follower " + name + " disconnected: " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sessions.remove(this);
+                close();
+            }
+        }
+
+        void readAcknowledgements(DataInputStream in) {
+            try {
+                while (running) {
+                    acknowledged = in.readLong();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
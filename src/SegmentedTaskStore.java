@@ -0,0 +1,426 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Stores the tasks of a {@link TaskManager} in a directory of fixed-size segment files,
+ * so that saving only rewrites what changed.
+ *
+ * <p>Segment {@code n} holds the tasks with IDs from {@code n * segmentSize + 1} to
+ * {@code (n + 1) * segmentSize} in the usual JSON format. A small {@code manifest.properties}
+ * lists the segment size, the save generation and the segments in use with the generation each
+ * was last written in. After the first save, {@link #save(TaskManager)} asks the task manager
+ * which tasks were created, updated or deleted since then (see {@link TaskManager#getChangedIds()})
+ * and rewrites only their segments and the manifest, so the amount written depends on the number
+ * of changes, not on the number of tasks.</p>
+ *
+ * <p>A save never overwrites a file the current manifest refers to: a rewritten segment goes to a
+ * new file {@code segment-n-g.json} named after the new generation {@code g}, and the manifest,
+ * written to a temporary file and moved over the old one, is the single commit point. If a save
+ * is interrupted before the manifest is replaced, the old manifest still describes a complete
+ * set of files; files left over from an interrupted or superseded save are deleted later.
+ * The segment files and the directory entries naming them are forced to disk before the manifest is
+ * moved, and the directory again after it, so a crash or power loss cannot leave a manifest that
+ * refers to segments the disk never received.</p>
+ */
+public class SegmentedTaskStore {
+    private static final int DEFAULT_SEGMENT_SIZE = 1024;
+    private static final String MANIFEST_FILE = "manifest.properties";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".json";
+    private static final String FORMAT_VERSION = "2";
+    // Format 1 had no generations and rewrote segment-n.json in place
+    private static final String UNVERSIONED_FORMAT = "1";
+
+    private final File directory;
+    private final int segmentSize;
+    private final JsonTaskManager jsonTaskManager;
+    private final TreeMap<Integer, Segment> segments;
+    private long generation;
+    private TaskManager attached;
+    private int lastWrittenSegments;
+
+    /**
+     * A segment in use: how many tasks it holds and the generation of its file.
+     */
+    private static final class Segment {
+        private final int taskCount;
+        private final long generation;
+
+        Segment(int taskCount, long generation) {
+            this.taskCount = taskCount;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Creates a store in the specified directory with segments of {@value #DEFAULT_SEGMENT_SIZE} tasks.
+     *
+     * @param directory The directory for the segment files and the manifest
+     */
+    public SegmentedTaskStore(String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a store in the specified directory.
+     *
+     * @param directory   The directory for the segment files and the manifest
+     * @param segmentSize The number of task IDs covered by one segment file
+     */
+    public SegmentedTaskStore(String directory, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        this.directory = new File(directory);
+        this.segmentSize = segmentSize;
+        this.jsonTaskManager = new JsonTaskManager();
+        this.segments = new TreeMap<>();
+    }
+
+    /**
+     * Saves the tasks of a task manager.
+     * The first save of a task manager through this store writes every segment;
+     * later saves only rewrite the segments that hold changed or deleted tasks.
+     *
+     * @param taskManager The task manager to save
+     * @return true if the tasks were saved successfully, false otherwise
+     */
+    public synchronized boolean save(TaskManager taskManager) {
+        TaskMetrics.FileProbe probe = TaskMetrics.beginFile("saveSegments", directory.getPath());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Error saving tasks: cannot create directory " + directory);
+            probe.end(0, 0, false);
+            return false;
+        }
+
+        taskManager.trackChanges();
+        Set<Integer> changedIds = taskManager.getChangedIds();
+        Map<Integer, List<Task>> dirtySegments = new HashMap<>();
+        Map<Integer, Segment> superseded = new HashMap<>();
+        boolean fullWrite = taskManager != attached;
+        if (fullWrite) {
+            // Not saved through this store before: write everything and drop segments of other data
+            for (Task task : taskManager.getAllTasks()) {
+                dirtySegments.computeIfAbsent(segmentOf(task.getId()), k -> new ArrayList<>()).add(task);
+            }
+            superseded.putAll(segments);
+            Manifest existing = readManifest();
+            if (existing != null) {
+                superseded.putAll(existing.segments);
+                generation = Math.max(generation, existing.generation);
+            }
+        } else {
+            for (int id : changedIds) {
+                int segment = segmentOf(id);
+                if (!dirtySegments.containsKey(segment)) {
+                    int firstId = segment * segmentSize + 1;
+                    dirtySegments.put(segment, taskManager.getTasksInRange(firstId, firstId + segmentSize - 1));
+                    if (segments.containsKey(segment)) {
+                        superseded.put(segment, segments.get(segment));
+                    }
+                }
+            }
+        }
+
+        long next = generation + 1;
+        long bytes = 0;
+        int taskCount = 0;
+        TreeMap<Integer, Segment> updated = fullWrite ? new TreeMap<>() : new TreeMap<>(segments);
+        try {
+            for (Map.Entry<Integer, List<Task>> entry : dirtySegments.entrySet()) {
+                List<Task> tasks = entry.getValue();
+                if (tasks.isEmpty()) {
+                    updated.remove(entry.getKey());
+                    continue;
+                }
+                // A new file per generation: the one the current manifest refers to stays intact
+                File file = segmentFile(entry.getKey(), next);
+                if (!jsonTaskManager.saveTasks(tasks, file.getPath())) {
+                    throw new IOException("cannot write " + file);
+                }
+                force(file.toPath());
+                bytes += file.length();
+                taskCount += tasks.size();
+                updated.put(entry.getKey(), new Segment(tasks.size(), next));
+            }
+            if (!dirtySegments.isEmpty()) {
+                forceDirectory();
+            }
+            bytes += writeManifest(updated, next);
+        } catch (IOException e) {
+            System.err.println("Error saving tasks to " + directory + ": " + e.getMessage());
+            probe.end(bytes, taskCount, false);
+            return false;
+        }
+
+        // The new manifest is in place, so the files it replaced are no longer needed
+        for (Map.Entry<Integer, Segment> entry : superseded.entrySet()) {
+            Segment current = updated.get(entry.getKey());
+            if (current == null || current.generation != entry.getValue().generation) {
+                deleteQuietly(segmentFile(entry.getKey(), entry.getValue().generation));
+            }
+        }
+        if (fullWrite) {
+            deleteUnreferenced(updated);
+        }
+
+        segments.clear();
+        segments.putAll(updated);
+        generation = next;
+        taskManager.markSaved(changedIds);
+        attached = taskManager;
+        lastWrittenSegments = dirtySegments.size();
+        probe.end(bytes, taskCount, true);
+        return true;
+    }
+
+    /**
+     * Loads all tasks of the store into a task manager, keeping their IDs.
+     * Tasks that already exist in the task manager are replaced.
+     * Later saves of this task manager through this store are incremental.
+     * Segment files left over from an interrupted save are deleted.
+     *
+     * @param taskManager The task manager to load the tasks into
+     * @return The number of tasks loaded, or -1 if the store has no manifest or uses another segment size
+     */
+    public synchronized int load(TaskManager taskManager) {
+        Manifest manifest = readManifest();
+        if (manifest == null) {
+            if (!manifestFile().exists()) {
+                System.err.println("Error loading tasks: no manifest in " + directory);
+            }
+            return -1;
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        for (Map.Entry<Integer, Segment> entry : manifest.segments.entrySet()) {
+            tasks.addAll(jsonTaskManager.loadTasks(segmentFile(entry.getKey(), entry.getValue().generation).getPath()));
+        }
+        taskManager.trackChanges();
+        int count = taskManager.importTasks(tasks, TaskManager.MergePolicy.REPLACE);
+
+        List<Integer> loadedIds = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            loadedIds.add(task.getId());
+        }
+        taskManager.markSaved(loadedIds);
+        deleteUnreferenced(manifest.segments);
+        segments.clear();
+        segments.putAll(manifest.segments);
+        generation = manifest.generation;
+        attached = taskManager;
+        return count;
+    }
+
+    /**
+     * Returns how many segment files the last successful save wrote.
+     *
+     * @return The number of segments written by the last save
+     */
+    public synchronized int getLastWrittenSegments() {
+        return lastWrittenSegments;
+    }
+
+    /**
+     * Returns the number of segment files in use.
+     *
+     * @return The number of segments
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private int segmentOf(int id) {
+        return Math.floorDiv(id - 1, segmentSize);
+    }
+
+    /**
+     * Returns the file of a segment as written in a generation; generation -1 stands for
+     * the single file per segment of format 1.
+     */
+    private File segmentFile(int segment, long generation) {
+        String name = generation < 0
+                ? SEGMENT_PREFIX + segment + SEGMENT_SUFFIX
+                : SEGMENT_PREFIX + segment + "-" + generation + SEGMENT_SUFFIX;
+        return new File(directory, name);
+    }
+
+    /**
+     * Deletes the segment files in the directory that the specified segments do not refer to.
+     */
+    private void deleteUnreferenced(Map<Integer, Segment> referenced) {
+        Set<String> names = new HashSet<>();
+        for (Map.Entry<Integer, Segment> entry : referenced.entrySet()) {
+            names.add(segmentFile(entry.getKey(), entry.getValue().generation).getName());
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!names.contains(file.getName())) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // Only wastes space; the next full save or load tries again
+            System.err.println("Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    private File manifestFile() {
+        return new File(directory, MANIFEST_FILE);
+    }
+
+    private static File temporaryFile(File file) {
+        return new File(file.getParentFile(), file.getName() + ".tmp");
+    }
+
+    private static void replace(File temporary, File file) throws IOException {
+        Path source = temporary.toPath();
+        Path target = file.toPath();
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // Some file systems cannot move atomically; a plain replace is the best we can do there
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the manifest with the specified segments and generation, and moves it over the old one.
+     *
+     * @return The size of the manifest in bytes
+     */
+    private long writeManifest(Map<Integer, Segment> segmentList, long manifestGeneration) throws IOException {
+        StringBuilder list = new StringBuilder();
+        for (Map.Entry<Integer, Segment> entry : segmentList.entrySet()) {
+            if (list.length() > 0) {
+                list.append(',');
+            }
+            list.append(entry.getKey()).append(':').append(entry.getValue().taskCount)
+                    .append(':').append(entry.getValue().generation);
+        }
+
+        Properties manifest = new Properties();
+        manifest.setProperty("format", FORMAT_VERSION);
+        manifest.setProperty("segmentSize", Integer.toString(segmentSize));
+        manifest.setProperty("generation", Long.toString(manifestGeneration));
+        manifest.setProperty("segments", list.toString());
+
+        File file = manifestFile();
+        File temporary = temporaryFile(file);
+        try (FileOutputStream out = new FileOutputStream(temporary)) {
+            manifest.store(out, "PowerTaskManager segmented store");
+            out.getChannel().force(true);
+        }
+        long length = temporary.length();
+        replace(temporary, file);
+        forceDirectory();
+        return length;
+    }
+
+    /**
+     * Forces the contents of a file to disk.
+     */
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces the directory entries of the store to disk, so files created or moved in it survive a crash.
+     */
+    private void forceDirectory() throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Some platforms, such as Windows, cannot open a directory; the file system alone decides there
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * The contents of a manifest.
+     */
+    private static final class Manifest {
+        private final long generation;
+        private final TreeMap<Integer, Segment> segments;
+
+        Manifest(long generation, TreeMap<Integer, Segment> segments) {
+            this.generation = generation;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * Reads the generation and the segments from the manifest.
+     *
+     * @return The manifest, or null if there is no readable manifest for this segment size
+     */
+    private Manifest readManifest() {
+        File file = manifestFile();
+        if (!file.exists()) {
+            return null;
+        }
+
+        Properties manifest = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            manifest.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading manifest " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        String format = manifest.getProperty("format");
+        if (!(FORMAT_VERSION.equals(format) || UNVERSIONED_FORMAT.equals(format))
+                || !Integer.toString(segmentSize).equals(manifest.getProperty("segmentSize"))) {
+            System.err.println("Manifest " + file + " has another format or segment size");
+            return null;
+        }
+
+        TreeMap<Integer, Segment> result = new TreeMap<>();
+        try {
+            long manifestGeneration = Long.parseLong(manifest.getProperty("generation", "0"));
+            String list = manifest.getProperty("segments", "");
+            if (!list.isEmpty()) {
+                for (String item : list.split(",")) {
+                    String[] parts = item.split(":");
+                    long segmentGeneration = parts.length > 2 ? Long.parseLong(parts[2].trim()) : -1;
+                    result.put(Integer.parseInt(parts[0].trim()),
+                            new Segment(Integer.parseInt(parts[1].trim()), segmentGeneration));
+                }
+            }
+            return new Manifest(manifestGeneration, result);
+        } catch (RuntimeException e) {
+            System.err.println("Error reading manifest " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
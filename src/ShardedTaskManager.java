@@ -0,0 +1,372 @@
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Hosts many independent task spaces (shards) in one process, one per tenant.
+ * Each shard has its own {@link TaskManager} (and therefore its own ID space and indexes)
+ * and its own persistence file. Operations on one shard run one at a time, while
+ * different shards run in parallel on a shared pool sized to the number of cores.
+ */
+public class ShardedTaskManager {
+    private static final String FILE_PREFIX = "tasks-";
+    private static final String FILE_SUFFIX = ".json";
+
+    private final Map<String, Shard> shards;
+    private final ExecutorService pool;
+    private final String storageDirectory;
+    private final JsonTaskManager jsonTaskManager;
+    // Guarded by the shards map
+    private boolean closed;
+
+    /**
+     * Creates a sharded manager that stores tenant files in the specified directory
+     * and uses one worker thread per available core.
+     *
+     * @param storageDirectory The directory for the per-tenant task files
+     */
+    public ShardedTaskManager(String storageDirectory) {
+        this(storageDirectory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a sharded manager with the specified number of worker threads.
+     *
+     * @param storageDirectory The directory for the per-tenant task files
+     * @param threads          The number of worker threads shared by all shards
+     */
+    public ShardedTaskManager(String storageDirectory, int threads) {
+        this.shards = new ConcurrentHashMap<>();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "task-shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.storageDirectory = storageDirectory;
+        this.jsonTaskManager = new JsonTaskManager();
+    }
+
+    /**
+     * Runs an operation against a tenant's task manager without waiting for it.
+     * Operations on the same tenant run in submission order, one at a time.
+     *
+     * @param tenant    The tenant (owner or project) the operation belongs to
+     * @param operation The operation to run
+     * @param <T>       The result type
+     * @return A future completed with the result of the operation, or failed with a
+     *         {@link RejectedExecutionException} after {@link #shutdown()}
+     */
+    public <T> CompletableFuture<T> submit(String tenant, Function<TaskManager, T> operation) {
+        try {
+            Shard shard = getShard(tenant);
+            return CompletableFuture.supplyAsync(() -> operation.apply(shard.taskManager), shard.executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs an operation against a tenant's task manager and waits for the result.
+     *
+     * @param tenant    The tenant (owner or project) the operation belongs to
+     * @param operation The operation to run
+     * @param <T>       The result type
+     * @return The result of the operation
+     */
+    public <T> T execute(String tenant, Function<TaskManager, T> operation) {
+        return submit(tenant, operation).join();
+    }
+
+    /**
+     * Returns the names of all known tenants in alphabetical order.
+     *
+     * @return The tenant names
+     */
+    public List<String> getTenants() {
+        return new ArrayList<>(new TreeMap<>(shards).keySet());
+    }
+
+    /**
+     * Saves a tenant's tasks to its own file.
+     *
+     * @param tenant The tenant to save
+     * @return true if the tasks were saved successfully, false otherwise
+     */
+    public boolean saveTenant(String tenant) {
+        String path = getFilePath(tenant);
+        return execute(tenant, taskManager -> jsonTaskManager.saveTasks(taskManager.getAllTasks(), path));
+    }
+
+    /**
+     * Loads a tenant's tasks from its own file into its task manager, keeping their IDs.
+     * Tasks already in memory with the same ID are replaced by the stored ones.
+     *
+     * @param tenant The tenant to load
+     * @return The number of tasks added or replaced
+     */
+    public int loadTenant(String tenant) {
+        String path = getFilePath(tenant);
+        return execute(tenant, taskManager ->
+                taskManager.importTasks(jsonTaskManager.loadTasks(path), TaskManager.MergePolicy.REPLACE));
+    }
+
+    /**
+     * Saves every tenant in parallel.
+     *
+     * @return true if all tenants were saved successfully, false otherwise
+     */
+    public boolean saveAll() {
+        boolean success = true;
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String tenant : shards.keySet()) {
+            String path = getFilePath(tenant);
+            futures.add(submit(tenant, taskManager -> jsonTaskManager.saveTasks(taskManager.getAllTasks(), path)));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            success &= future.join();
+        }
+        return success;
+    }
+
+    /**
+     * Searches all tenants in parallel for tasks containing the keyword.
+     * Results are ordered by tenant name, then by each tenant's own task order.
+     *
+     * @param keyword The keyword to search for
+     * @return The matching tasks with their tenants
+     */
+    public List<TenantTask> searchAll(String keyword) {
+        Map<String, List<Task>> perTenant = fanOut(taskManager -> taskManager.searchTasks(keyword));
+        List<TenantTask> results = new ArrayList<>();
+        for (Map.Entry<String, List<Task>> entry : perTenant.entrySet()) {
+            for (Task task : entry.getValue()) {
+                results.add(new TenantTask(entry.getKey(), task));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sorts the tasks of all tenants. Each tenant is sorted in parallel and
+     * the sorted runs are merged, with ties broken by tenant name.
+     *
+     * @param criteria  The criteria to sort by (e.g., "deadline", "priority", "status")
+     * @param ascending Whether to sort in ascending order
+     * @return All tasks with their tenants, in sorted order
+     */
+    public List<TenantTask> sortAll(String criteria, boolean ascending) {
+        Map<String, List<Task>> perTenant = fanOut(taskManager -> taskManager.sortTasks(criteria, ascending));
+        Comparator<Task> taskComparator = TaskManager.getComparator(criteria, ascending);
+
+        int total = 0;
+        PriorityQueue<Run> heap = new PriorityQueue<>(Math.max(1, perTenant.size()), (a, b) -> {
+            int result = taskComparator.compare(a.peek(), b.peek());
+            return result != 0 ? result : a.tenant.compareTo(b.tenant);
+        });
+        for (Map.Entry<String, List<Task>> entry : perTenant.entrySet()) {
+            total += entry.getValue().size();
+            if (!entry.getValue().isEmpty()) {
+                heap.add(new Run(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        List<TenantTask> results = new ArrayList<>(total);
+        while (!heap.isEmpty()) {
+            Run run = heap.poll();
+            results.add(new TenantTask(run.tenant, run.peek()));
+            run.position++;
+            if (run.position < run.tasks.size()) {
+                heap.add(run);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stops taking operations, waits for the ones already submitted to finish and then stops the
+     * worker threads, so every future returned by {@link #submit} completes. Operations submitted
+     * afterwards fail with a {@link RejectedExecutionException}. If the calling thread is
+     * interrupted while waiting, the workers are left to finish the queued operations on their own.
+     */
+    public void shutdown() {
+        // No shard can be created once closed is set, so every shard is closed here
+        synchronized (shards) {
+            closed = true;
+            for (Shard shard : shards.values()) {
+                shard.executor.close();
+            }
+        }
+        try {
+            for (Shard shard : shards.values()) {
+                shard.executor.awaitIdle();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Runs the same operation on every tenant in parallel and collects the results.
+     *
+     * @param operation The operation to run
+     * @param <T>       The result type
+     * @return The results keyed by tenant name, in alphabetical order
+     */
+    private <T> Map<String, T> fanOut(Function<TaskManager, T> operation) {
+        Map<String, CompletableFuture<T>> futures = new TreeMap<>();
+        for (String tenant : shards.keySet()) {
+            futures.put(tenant, submit(tenant, operation));
+        }
+
+        Map<String, T> results = new TreeMap<>();
+        for (Map.Entry<String, CompletableFuture<T>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), entry.getValue().join());
+        }
+        return results;
+    }
+
+    private Shard getShard(String tenant) {
+        if (tenant == null || !tenant.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid tenant name: " + tenant);
+        }
+        Shard shard = shards.get(tenant);
+        if (shard != null) {
+            return shard;
+        }
+        synchronized (shards) {
+            if (closed) {
+                throw new RejectedExecutionException("The sharded task manager is shut down");
+            }
+            return shards.computeIfAbsent(tenant, name -> new Shard(pool));
+        }
+    }
+
+    private String getFilePath(String tenant) {
+        return new File(storageDirectory, FILE_PREFIX + tenant + FILE_SUFFIX).getPath();
+    }
+
+    /**
+     * A task found in one of the shards, together with the tenant it belongs to.
+     * Task IDs are only unique within a tenant.
+     */
+    public static class TenantTask {
+        private final String tenant;
+        private final Task task;
+
+        public TenantTask(String tenant, Task task) {
+            this.tenant = tenant;
+            this.task = task;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+    }
+
+    /**
+     * One tenant's task space and the executor that serializes access to it.
+     */
+    private static class Shard {
+        private final TaskManager taskManager;
+        private final SerialExecutor executor;
+
+        Shard(Executor pool) {
+            this.taskManager = new TaskManager();
+            this.executor = new SerialExecutor(pool);
+        }
+    }
+
+    /**
+     * Runs tasks one at a time, in order, on top of a shared pool. Only one task of a shard is
+     * handed to the pool at a time, so the pool may only be shut down once the shard is idle.
+     */
+    private static class SerialExecutor implements Executor {
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+        private final Executor pool;
+        private Runnable active;
+        private boolean closed;
+
+        SerialExecutor(Executor pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public synchronized void execute(Runnable runnable) {
+            if (closed) {
+                throw new RejectedExecutionException("The shard is shut down");
+            }
+            queue.add(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        /**
+         * Refuses new tasks; the queued ones still run.
+         */
+        synchronized void close() {
+            closed = true;
+        }
+
+        /**
+         * Waits until the queue is empty and no task is running.
+         */
+        synchronized void awaitIdle() throws InterruptedException {
+            while (active != null) {
+                wait();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = queue.poll();
+            if (active != null) {
+                pool.execute(active);
+            } else {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A cursor over one tenant's sorted tasks, used while merging.
+     */
+    private static class Run {
+        private final String tenant;
+        private final List<Task> tasks;
+        private int position;
+
+        Run(String tenant, List<Task> tasks) {
+            this.tenant = tenant;
+            this.tasks = tasks;
+        }
+
+        Task peek() {
+            return tasks.get(position);
+        }
+    }
+}
@@ -1,17 +1,25 @@
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a task in the task management system.
  */
 public class Task {
-    private static int nextId = 1;
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+    // Deadlines repeat a lot (end of day, whole hours), and each LocalDateTime is three objects
+    private static final ValuePool<LocalDateTime> DEADLINES = new ValuePool<>(200_000);
+    private static final int[] NO_BLOCKERS = new int[0];
     private final int id;
     private String title;
-    private String description;
+    private byte[] description;
     private LocalDateTime deadline;
     private Priority priority;
     private Status status;
+    private int[] blockerIds;
+    private volatile long version;
+    private boolean dirty;
+    private long lastTouched;
 
     /**
      * Priority levels for tasks.
@@ -28,7 +36,7 @@ public class Task {
     }
 
     /**
-     * Creates a new task with the specified details.
+     * Creates a new task with the specified details and the next ID from a process-wide counter.
      *
      * @param title       The title of the task
      * @param description The detailed description of the task
@@ -36,12 +44,29 @@ public class Task {
      * @param priority    The priority level of the task
      */
     public Task(String title, String description, LocalDateTime deadline, Priority priority) {
-        this.id = nextId++;
-        this.title = title;
-        this.description = description;
-        this.deadline = deadline;
+        this(NEXT_ID.getAndIncrement(), title, description, deadline, priority);
+    }
+
+    /**
+     * Creates a new task with an explicit ID.
+     * Used by task managers that hand out IDs from their own ID space; it does not touch
+     * the process-wide counter, so managers on different threads share no state here.
+     *
+     * @param id          The ID of the task
+     * @param title       The title of the task
+     * @param description The detailed description of the task
+     * @param deadline    The deadline for the task
+     * @param priority    The priority level of the task
+     */
+    public Task(int id, String title, String description, LocalDateTime deadline, Priority priority) {
+        this.id = id;
+        this.title = TextPool.titles().intern(title);
+        this.description = CompactText.encode(description);
+        this.deadline = DEADLINES.intern(deadline);
         this.priority = priority;
         this.status = Status.TODO;
+        this.blockerIds = NO_BLOCKERS;
+        this.dirty = true;
     }
 
     // Getters and setters
@@ -53,16 +78,37 @@ public class Task {
         return title;
     }
 
+    /**
+     * Sets the title. Equal titles are shared between tasks through {@link TextPool#titles()}.
+     *
+     * @param title The new title
+     */
     public void setTitle(String title) {
-        this.title = title;
+        this.title = TextPool.titles().intern(title);
+        this.dirty = true;
     }
 
+    /**
+     * Returns the description. It is kept in {@link CompactText} form and decoded on every call.
+     *
+     * @return The description
+     */
     public String getDescription() {
-        return description;
+        return CompactText.decode(description);
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        this.description = CompactText.encode(description);
+        this.dirty = true;
+    }
+
+    /**
+     * Returns the compact form of the description, without decoding it.
+     *
+     * @return The encoded description
+     */
+    byte[] getCompactDescription() {
+        return description;
     }
 
     public LocalDateTime getDeadline() {
@@ -70,7 +116,8 @@ public class Task {
     }
 
     public void setDeadline(LocalDateTime deadline) {
-        this.deadline = deadline;
+        this.deadline = DEADLINES.intern(deadline);
+        this.dirty = true;
     }
 
     public Priority getPriority() {
@@ -79,6 +126,7 @@ public class Task {
 
     public void setPriority(Priority priority) {
         this.priority = priority;
+        this.dirty = true;
     }
 
     public Status getStatus() {
@@ -87,17 +135,110 @@ public class Task {
 
     public void setStatus(Status status) {
         this.status = status;
+        this.dirty = true;
+    }
+
+    /**
+     * Returns the IDs of the tasks this task waits for. They are stored with the task, so every
+     * format that saves tasks keeps them; {@link TaskManager#addDependency(int, int)} and
+     * {@link TaskManager#removeDependency(int, int)} keep them in step with the dependency graph.
+     *
+     * @return A copy of the IDs, empty if the task waits for nothing
+     */
+    public int[] getBlockerIds() {
+        return blockerIds.length == 0 ? NO_BLOCKERS : blockerIds.clone();
+    }
+
+    /**
+     * Sets the IDs of the tasks this task waits for, as restored from storage or set by {@link TaskManager}.
+     *
+     * @param blockerIds The IDs of the blocking tasks
+     */
+    void setBlockerIds(int[] blockerIds) {
+        this.blockerIds = blockerIds.length == 0 ? NO_BLOCKERS : blockerIds.clone();
+        this.dirty = true;
+    }
+
+    /**
+     * Returns the version of the task. The version starts at 0 and is incremented
+     * by {@link TaskManager} every time the task is updated through it.
+     *
+     * @return The current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Increments the version before an update. {@link TaskManager} calls this under its monitor;
+     * the field is volatile so that {@link #getVersion()} needs no lock.
+     */
+    void incrementVersion() {
+        version++;
+    }
+
+    /**
+     * Restores the version of a task that was read back from storage.
+     *
+     * @param version The version the task had when it was stored
+     */
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns when the task was last created, read or updated through {@link TaskManager}
+     * while tiering was enabled.
+     *
+     * @return The time of the last access in epoch milliseconds
+     */
+    long getLastTouched() {
+        return lastTouched;
+    }
+
+    /**
+     * Records an access to the task.
+     *
+     * @param millis The time of the access in epoch milliseconds
+     */
+    void touch(long millis) {
+        this.lastTouched = millis;
+    }
+
+    /**
+     * Returns whether the task was created or changed since it was last written by
+     * {@link SegmentedTaskStore}. Every setter marks the task dirty.
+     *
+     * @return true if the task has unsaved changes
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks the task as saved.
+     */
+    void clearDirty() {
+        dirty = false;
     }
 
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        return String.format("Завдання #%d: %s [%s]\n" +
+        String text = String.format("Завдання #%d: %s [%s]\n" +
                         "Опис: %s\n" +
                         "Дедлайн: %s\n" +
                         "Пріоритет: %s\n" +
                         "Статус: %s",
-                id, title, getUkrainianStatus(status), description, deadline.format(formatter), getUkrainianPriority(priority), getUkrainianStatus(status));
+                id, title, getUkrainianStatus(status), getDescription(), deadline.format(formatter), getUkrainianPriority(priority), getUkrainianStatus(status));
+        if (blockerIds.length == 0) {
+            return text;
+        }
+        StringBuilder blockers = new StringBuilder(text).append("\nЧекає на:");
+        for (int blockerId : blockerIds) {
+            blockers.append(" #").append(blockerId);
+        }
+        return blockers.toString();
     }
 
     /**
@@ -0,0 +1,161 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps task counts up to date as a {@link TaskListener}, so that {@link TaskManager#getStatistics()}
+ * does not have to walk the tasks.
+ *
+ * <p>Counts per status and priority change only when a task is created, updated or deleted.
+ * Whether a task is overdue also changes with time, so the deadlines of all open tasks are kept
+ * in a sorted multiset. The overdue count remembers the time it was last computed for; when
+ * asked again it only adds the deadlines passed since then, so each deadline is crossed once.
+ * The due-today count is recomputed from one day of deadlines when the date changes.
+ * Creates, updates and deletes adjust both counts directly.</p>
+ */
+class TaskAggregates implements TaskListener {
+    private static final int PRIORITIES = Task.Priority.values().length;
+
+    private final Supplier<LocalDateTime> now;
+    private final int[][] counts;
+    private final TreeMap<LocalDateTime, Integer> openDeadlines;
+    // What each task was counted under, by ID, so updates can undo the old counts
+    private byte[] countedKeys;
+    private LocalDateTime[] countedDeadlines;
+    private LocalDateTime overdueBefore;
+    private int overdue;
+    private LocalDate today;
+    private int dueToday;
+
+    /**
+     * Creates the aggregates for the specified tasks.
+     *
+     * @param tasks The tasks to count
+     * @param now   Supplies the current time for the overdue and due-today counts
+     */
+    TaskAggregates(List<Task> tasks, Supplier<LocalDateTime> now) {
+        this.now = now;
+        this.counts = new int[Task.Status.values().length][PRIORITIES];
+        this.openDeadlines = new TreeMap<>();
+        this.countedKeys = new byte[16];
+        this.countedDeadlines = new LocalDateTime[16];
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskCreated(Task task) {
+        add(task);
+    }
+
+    @Override
+    public synchronized void onTaskUpdated(Task task) {
+        remove(task.getId());
+        add(task);
+    }
+
+    @Override
+    public synchronized void onTaskDeleted(Task task) {
+        remove(task.getId());
+    }
+
+    /**
+     * Returns the current counts.
+     * The cost is constant apart from the deadlines passed since the previous call.
+     *
+     * @return The statistics as of now
+     */
+    synchronized TaskStatistics getStatistics() {
+        LocalDateTime time = now.get();
+        if (overdueBefore == null || time.isBefore(overdueBefore)) {
+            // First call, or the clock went back: count from scratch
+            overdue = sum(openDeadlines.headMap(time, false).values());
+        } else {
+            overdue += sum(openDeadlines.subMap(overdueBefore, true, time, false).values());
+        }
+        overdueBefore = time;
+
+        LocalDate date = time.toLocalDate();
+        if (!date.equals(today)) {
+            today = date;
+            dueToday = sum(openDeadlines.subMap(date.atStartOfDay(), true,
+                    date.plusDays(1).atStartOfDay(), false).values());
+        }
+
+        int[][] copy = new int[counts.length][];
+        for (int i = 0; i < counts.length; i++) {
+            copy[i] = counts[i].clone();
+        }
+        return new TaskStatistics(copy, overdue, dueToday, time);
+    }
+
+    /**
+     * Counts a task known only from its index record, such as a task of a lazy store that has
+     * not been read yet. Reading the task later must not count it again.
+     *
+     * @param id       The ID of the task
+     * @param status   The status of the task
+     * @param priority The priority of the task
+     * @param deadline The deadline of the task
+     */
+    synchronized void addRecord(int id, Task.Status status, Task.Priority priority, LocalDateTime deadline) {
+        count(id, status, priority, deadline);
+    }
+
+    private void add(Task task) {
+        count(task.getId(), task.getStatus(), task.getPriority(), task.getDeadline());
+    }
+
+    private void count(int id, Task.Status taskStatus, Task.Priority taskPriority, LocalDateTime deadline) {
+        if (id >= countedKeys.length) {
+            int capacity = Math.max(id + 1, countedKeys.length * 2);
+            countedKeys = Arrays.copyOf(countedKeys, capacity);
+            countedDeadlines = Arrays.copyOf(countedDeadlines, capacity);
+        }
+        int status = taskStatus.ordinal();
+        int priority = taskPriority.ordinal();
+        counts[status][priority]++;
+        // Zero marks an ID that is not counted
+        countedKeys[id] = (byte) (status * PRIORITIES + priority + 1);
+        if (taskStatus != Task.Status.DONE) {
+            countedDeadlines[id] = deadline;
+            addOpenDeadline(deadline, 1);
+        }
+    }
+
+    private void remove(int id) {
+        if (id >= countedKeys.length || countedKeys[id] == 0) {
+            return;
+        }
+        int key = countedKeys[id] - 1;
+        counts[key / PRIORITIES][key % PRIORITIES]--;
+        countedKeys[id] = 0;
+        LocalDateTime deadline = countedDeadlines[id];
+        if (deadline != null) {
+            countedDeadlines[id] = null;
+            addOpenDeadline(deadline, -1);
+        }
+    }
+
+    private void addOpenDeadline(LocalDateTime deadline, int delta) {
+        openDeadlines.merge(deadline, delta, (a, b) -> a + b == 0 ? null : a + b);
+        if (overdueBefore != null && deadline.isBefore(overdueBefore)) {
+            overdue += delta;
+        }
+        if (deadline.toLocalDate().equals(today)) {
+            dueToday += delta;
+        }
+    }
+
+    private static int sum(Iterable<Integer> values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,578 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dependencies between tasks for a {@link TaskManager}: an edge from a blocker to a task means
+ * that the task cannot start before the blocker is done.
+ *
+ * <p>The graph keeps a topological order of the tasks that have dependencies, maintained with the
+ * Pearce–Kelly algorithm: when a new edge agrees with the current order nothing moves, otherwise
+ * only the tasks between the two ends of the edge in the order are searched and reordered. The same
+ * search finds the cycle the edge would close, in which case the edge is refused. A task enters the
+ * order at the end when it gets its first edge, and the blocker of a new edge before the task, so
+ * dependencies on tasks without dependencies of their own, the usual case, rarely move anything.
+ * A task that loses its last edge leaves the order; the gaps are closed once they make up half of it,
+ * so walking the order costs time in the number of tasks with dependencies, not the number of tasks.</p>
+ *
+ * <p>As a {@link TaskListener} the graph also follows the status of every task and keeps, per task,
+ * the number of blockers that are not done, so the set of tasks ready to start is updated in
+ * constant time per affected edge. All per-task data is kept in arrays indexed by the dense slots of
+ * {@link TaskSlots}, so it grows with the number of tasks and not with the highest task ID.</p>
+ *
+ * <p>The edges themselves are stored in the tasks, as {@link Task#getBlockerIds()}, and the graph
+ * follows them: it takes them from the tasks it is built from, from created tasks and from every
+ * update. Blocker IDs that belong to no task, or edges that would close a cycle, are left out.</p>
+ */
+class TaskDependencyGraph implements TaskListener {
+    private static final byte UNKNOWN = 0;
+    private static final byte OPEN = 1;
+    private static final byte DONE = 2;
+    private static final int[] NO_EDGES = new int[0];
+    private static final int UNRANKED = -1;
+    private static final int HOLE = -1;
+
+    private final TaskSlots slots;
+    private byte[] states;
+    private int[] openBlockers;
+    // Edge lists hold slots, not IDs
+    private int[][] blockers;
+    private int[] blockerCounts;
+    private int[][] dependents;
+    private int[] dependentCounts;
+    private final BitSet ready;
+    private int edges;
+
+    // ranks[slot] is the position of a task in the topological order, or UNRANKED if it has no
+    // edges, and atRank[rank] the slot at a position, or HOLE where a task has left the order
+    private int[] ranks;
+    private int[] atRank;
+    private int orderSize;
+    private int holes;
+
+    // Search marks; a task is marked if its mark equals the current stamp
+    private int[] marks;
+    private int stamp;
+    private int[] stack;
+
+    /**
+     * Creates a graph for the specified tasks and the dependencies stored in them.
+     *
+     * @param tasks The tasks of the task manager
+     */
+    TaskDependencyGraph(List<Task> tasks) {
+        int capacity = Math.max(16, tasks.size());
+        this.slots = new TaskSlots();
+        this.states = new byte[capacity];
+        this.openBlockers = new int[capacity];
+        this.blockers = new int[capacity][];
+        this.blockerCounts = new int[capacity];
+        this.dependents = new int[capacity][];
+        this.dependentCounts = new int[capacity];
+        this.ranks = new int[capacity];
+        Arrays.fill(ranks, UNRANKED);
+        this.atRank = new int[16];
+        this.marks = new int[capacity];
+        this.stack = new int[16];
+        this.ready = new BitSet(capacity);
+        for (Task task : tasks) {
+            addTask(task.getId(), task.getStatus());
+        }
+        for (Task task : tasks) {
+            syncBlockers(task);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskCreated(Task task) {
+        addTask(task.getId(), task.getStatus());
+        syncBlockers(task);
+    }
+
+    @Override
+    public synchronized void onTaskUpdated(Task task) {
+        int slot = slots.slotOf(task.getId());
+        if (slot < 0) {
+            onTaskCreated(task);
+            return;
+        }
+        byte state = task.getStatus() == Task.Status.DONE ? DONE : OPEN;
+        byte previous = states[slot];
+        states[slot] = state;
+        if (previous != state) {
+            // Dependents gain or lose an open blocker
+            int delta = state == DONE ? -1 : 1;
+            for (int i = 0; i < dependentCounts[slot]; i++) {
+                int dependent = dependents[slot][i];
+                openBlockers[dependent] += delta;
+                updateReady(dependent);
+            }
+        }
+        updateReady(slot);
+        syncBlockers(task);
+    }
+
+    @Override
+    public synchronized void onTaskDeleted(Task task) {
+        int slot = slots.slotOf(task.getId());
+        if (slot < 0) {
+            return;
+        }
+        boolean open = states[slot] == OPEN;
+        for (int i = 0; i < dependentCounts[slot]; i++) {
+            int dependent = dependents[slot][i];
+            removeFrom(blockers, blockerCounts, dependent, slot);
+            if (open) {
+                openBlockers[dependent]--;
+                updateReady(dependent);
+            }
+            leaveOrderIfUnlinked(dependent);
+        }
+        for (int i = 0; i < blockerCounts[slot]; i++) {
+            int blocker = blockers[slot][i];
+            removeFrom(dependents, dependentCounts, blocker, slot);
+            leaveOrderIfUnlinked(blocker);
+        }
+        edges -= blockerCounts[slot] + dependentCounts[slot];
+        blockers[slot] = null;
+        blockerCounts[slot] = 0;
+        dependents[slot] = null;
+        dependentCounts[slot] = 0;
+        leaveOrderIfUnlinked(slot);
+        openBlockers[slot] = 0;
+        states[slot] = UNKNOWN;
+        ready.clear(slot);
+        slots.remove(task.getId());
+    }
+
+    /**
+     * Makes the edges into a task match the blocker IDs stored in it, as after a load, an import
+     * or a replicated update. Most tasks have no blockers, which is checked first.
+     *
+     * @param task The task whose stored blockers to follow
+     */
+    synchronized void syncBlockers(Task task) {
+        int slot = slots.slotOf(task.getId());
+        int[] wanted = task.getBlockerIds();
+        if (slot < 0 || (wanted.length == 0 && blockerCounts[slot] == 0)) {
+            return;
+        }
+        // Removing fills the gap with the last entry, which has been looked at already
+        for (int i = blockerCounts[slot] - 1; i >= 0; i--) {
+            int blockerId = slots.idAt(blockers[slot][i]);
+            if (indexOf(wanted, wanted.length, blockerId) < 0) {
+                removeDependency(task.getId(), blockerId);
+            }
+        }
+        for (int blockerId : wanted) {
+            addDependency(task.getId(), blockerId);
+        }
+    }
+
+    /**
+     * Adds a dependency, keeping the topological order. Only the tasks whose position in the order
+     * lies between the two tasks are visited, and only if the edge contradicts the current order.
+     *
+     * @param taskId    The ID of the task that has to wait
+     * @param blockerId The ID of the task it waits for
+     * @return true if the dependency was added, false if a task is unknown, the dependency
+     *         already exists or it would create a cycle
+     */
+    synchronized boolean addDependency(int taskId, int blockerId) {
+        int task = slots.slotOf(taskId);
+        int blocker = slots.slotOf(blockerId);
+        if (taskId == blockerId || task < 0 || blocker < 0 || hasEdge(task, blocker)) {
+            return false;
+        }
+        enterOrder(blocker);
+        enterOrder(task);
+        int lower = ranks[task];
+        int upper = ranks[blocker];
+        if (lower < upper) {
+            // The blocker has to come before the task but comes after it: reorder the affected region
+            int[] forward = search(task, upper, true, blocker);
+            if (forward == null) {
+                leaveOrderIfUnlinked(task);
+                leaveOrderIfUnlinked(blocker);
+                return false;
+            }
+            int[] backward = search(blocker, lower, false, -1);
+            reorder(backward, forward);
+        }
+
+        blockerCounts[task] = append(blockers, blockerCounts, task, blocker);
+        dependentCounts[blocker] = append(dependents, dependentCounts, blocker, task);
+        edges++;
+        if (states[blocker] == OPEN) {
+            openBlockers[task]++;
+            updateReady(task);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a dependency. The topological order stays valid, so it is left as it is, apart from
+     * tasks that no longer have any dependency.
+     *
+     * @param taskId    The ID of the task that waits
+     * @param blockerId The ID of the task it waits for
+     * @return true if the dependency existed, false otherwise
+     */
+    synchronized boolean removeDependency(int taskId, int blockerId) {
+        int task = slots.slotOf(taskId);
+        int blocker = slots.slotOf(blockerId);
+        if (task < 0 || blocker < 0 || !hasEdge(task, blocker)) {
+            return false;
+        }
+        removeFrom(blockers, blockerCounts, task, blocker);
+        removeFrom(dependents, dependentCounts, blocker, task);
+        edges--;
+        if (states[blocker] == OPEN) {
+            openBlockers[task]--;
+            updateReady(task);
+        }
+        leaveOrderIfUnlinked(task);
+        leaveOrderIfUnlinked(blocker);
+        return true;
+    }
+
+    synchronized boolean hasDependency(int taskId, int blockerId) {
+        int task = slots.slotOf(taskId);
+        int blocker = slots.slotOf(blockerId);
+        return task >= 0 && blocker >= 0 && hasEdge(task, blocker);
+    }
+
+    synchronized int[] getBlockers(int id) {
+        int slot = slots.slotOf(id);
+        return slot >= 0 ? toIds(blockers[slot], blockerCounts[slot]) : NO_EDGES;
+    }
+
+    synchronized int[] getDependents(int id) {
+        int slot = slots.slotOf(id);
+        return slot >= 0 ? toIds(dependents[slot], dependentCounts[slot]) : NO_EDGES;
+    }
+
+    synchronized int getDependencyCount() {
+        return edges;
+    }
+
+    /**
+     * Returns the tasks that are not done and whose blockers are all done, in ascending ID order.
+     *
+     * @return The IDs of the ready tasks
+     */
+    synchronized int[] getReadyIds() {
+        int[] ids = new int[ready.cardinality()];
+        int count = 0;
+        for (int slot = ready.nextSetBit(0); slot >= 0; slot = ready.nextSetBit(slot + 1)) {
+            ids[count++] = slots.idAt(slot);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    synchronized boolean isReady(int id) {
+        int slot = slots.slotOf(id);
+        return slot >= 0 && ready.get(slot);
+    }
+
+    /**
+     * Returns the tasks with dependencies in an order where every blocker comes before the tasks it blocks.
+     * Only the order itself is walked, which holds just the tasks with dependencies.
+     *
+     * @return The IDs in topological order
+     */
+    synchronized int[] getTopologicalOrder() {
+        int[] ids = new int[orderSize - holes];
+        int count = 0;
+        for (int rank = 0; rank < orderSize; rank++) {
+            if (atRank[rank] != HOLE) {
+                ids[count++] = slots.idAt(atRank[rank]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Finds the longest chain of tasks that are not done and must be finished, one after the other,
+     * before a task can start. Only blockers that are not done are followed. Tasks have no duration,
+     * so every task counts as one step; among chains of equal length the one found first is returned.
+     * The cost depends on the number of open tasks the task transitively waits for.
+     *
+     * @param id The ID of the task
+     * @return The IDs of the chain, starting with a task that can start now and ending with the task,
+     *         or an empty array if the task is unknown
+     */
+    synchronized int[] getCriticalPath(int id) {
+        int target = slots.slotOf(id);
+        if (target < 0) {
+            return NO_EDGES;
+        }
+        if (blockerCounts[target] == 0) {
+            return new int[]{id};
+        }
+        // Collect the open tasks the task waits for, then walk them in topological order
+        int[] ancestors = collect(target);
+        sortByRank(ancestors);
+
+        Map<Integer, Integer> length = new HashMap<>(ancestors.length * 2);
+        Map<Integer, Integer> previous = new HashMap<>(ancestors.length * 2);
+        for (int node : ancestors) {
+            int best = 0;
+            int bestBlocker = -1;
+            for (int i = 0; i < blockerCounts[node]; i++) {
+                int blocker = blockers[node][i];
+                Integer blockerLength = length.get(blocker);
+                if (blockerLength != null && blockerLength > best) {
+                    best = blockerLength;
+                    bestBlocker = blocker;
+                }
+            }
+            length.put(node, best + 1);
+            previous.put(node, bestBlocker);
+        }
+
+        int[] path = new int[length.getOrDefault(target, 1)];
+        int node = target;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = slots.idAt(node);
+            node = previous.getOrDefault(node, -1);
+        }
+        return path;
+    }
+
+    /**
+     * Adds a task without its edges.
+     */
+    private void addTask(int id, Task.Status status) {
+        if (slots.slotOf(id) >= 0) {
+            return;
+        }
+        int slot = slots.add(id);
+        ensureCapacity(slot);
+        states[slot] = status == Task.Status.DONE ? DONE : OPEN;
+        updateReady(slot);
+    }
+
+    private boolean hasEdge(int task, int blocker) {
+        // Search the shorter of the two edge lists
+        if (blockerCounts[task] <= dependentCounts[blocker]) {
+            return indexOf(blockers[task], blockerCounts[task], blocker) >= 0;
+        }
+        return indexOf(dependents[blocker], dependentCounts[blocker], task) >= 0;
+    }
+
+    private void updateReady(int slot) {
+        ready.set(slot, states[slot] == OPEN && openBlockers[slot] == 0);
+    }
+
+    /**
+     * Puts a task without a position at the end of the order.
+     */
+    private void enterOrder(int slot) {
+        if (ranks[slot] != UNRANKED) {
+            return;
+        }
+        if (orderSize == atRank.length) {
+            atRank = Arrays.copyOf(atRank, orderSize * 2);
+        }
+        ranks[slot] = orderSize;
+        atRank[orderSize++] = slot;
+    }
+
+    /**
+     * Takes a task out of the order once it has no edges left, and closes the gaps once they make
+     * up half of the order. Closing them keeps the relative order, so it stays a topological order.
+     */
+    private void leaveOrderIfUnlinked(int slot) {
+        if (ranks[slot] == UNRANKED || blockerCounts[slot] > 0 || dependentCounts[slot] > 0) {
+            return;
+        }
+        atRank[ranks[slot]] = HOLE;
+        ranks[slot] = UNRANKED;
+        holes++;
+        if (holes * 2 > orderSize) {
+            int size = 0;
+            for (int rank = 0; rank < orderSize; rank++) {
+                int node = atRank[rank];
+                if (node != HOLE) {
+                    ranks[node] = size;
+                    atRank[size++] = node;
+                }
+            }
+            orderSize = size;
+            holes = 0;
+        }
+    }
+
+    /**
+     * Depth-first search from a task over the region of the order it may have to move in:
+     * forwards over dependents up to the rank {@code bound}, or backwards over blockers down to it.
+     *
+     * @return The visited tasks, or null if the forward search reached {@code target}
+     */
+    private int[] search(int start, int bound, boolean forward, int target) {
+        nextStamp();
+        int[] visited = new int[16];
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        marks[start] = stamp;
+        while (top > 0) {
+            int node = stack[--top];
+            if (count == visited.length) {
+                visited = Arrays.copyOf(visited, count * 2);
+            }
+            visited[count++] = node;
+            int[] next = forward ? dependents[node] : blockers[node];
+            int nextCount = forward ? dependentCounts[node] : blockerCounts[node];
+            for (int i = 0; i < nextCount; i++) {
+                int neighbour = next[i];
+                if (neighbour == target) {
+                    return null;
+                }
+                int rank = ranks[neighbour];
+                if (marks[neighbour] != stamp && (forward ? rank < bound : rank > bound)) {
+                    marks[neighbour] = stamp;
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = neighbour;
+                }
+            }
+        }
+        return Arrays.copyOf(visited, count);
+    }
+
+    /**
+     * Reuses the ranks of both searched sets: the blockers' side first, then the dependents'
+     * side, each keeping its relative order.
+     */
+    private void reorder(int[] backward, int[] forward) {
+        sortByRank(backward);
+        sortByRank(forward);
+        int[] freed = new int[backward.length + forward.length];
+        for (int i = 0; i < backward.length; i++) {
+            freed[i] = ranks[backward[i]];
+        }
+        for (int i = 0; i < forward.length; i++) {
+            freed[backward.length + i] = ranks[forward[i]];
+        }
+        Arrays.sort(freed);
+        for (int i = 0; i < freed.length; i++) {
+            int node = i < backward.length ? backward[i] : forward[i - backward.length];
+            ranks[node] = freed[i];
+            atRank[freed[i]] = node;
+        }
+    }
+
+    /**
+     * Returns a task and all open tasks it transitively waits for.
+     */
+    private int[] collect(int slot) {
+        nextStamp();
+        int[] visited = new int[16];
+        int count = 0;
+        int top = 0;
+        stack[top++] = slot;
+        marks[slot] = stamp;
+        while (top > 0) {
+            int node = stack[--top];
+            if (count == visited.length) {
+                visited = Arrays.copyOf(visited, count * 2);
+            }
+            visited[count++] = node;
+            for (int i = 0; i < blockerCounts[node]; i++) {
+                int blocker = blockers[node][i];
+                if (marks[blocker] != stamp && states[blocker] == OPEN) {
+                    marks[blocker] = stamp;
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = blocker;
+                }
+            }
+        }
+        return Arrays.copyOf(visited, count);
+    }
+
+    private void sortByRank(int[] nodes) {
+        // Ranks are unique, so sorting the packed (rank, slot) pairs sorts the slots by rank
+        long[] keyed = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            keyed[i] = ((long) ranks[nodes[i]] << 32) | nodes[i];
+        }
+        Arrays.sort(keyed);
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = (int) keyed[i];
+        }
+    }
+
+    private int[] toIds(int[] list, int count) {
+        if (list == null) {
+            return NO_EDGES;
+        }
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = slots.idAt(list[i]);
+        }
+        return ids;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 1;
+        }
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < states.length) {
+            return;
+        }
+        int capacity = Math.max(slot + 1, states.length * 2);
+        int oldCapacity = states.length;
+        states = Arrays.copyOf(states, capacity);
+        openBlockers = Arrays.copyOf(openBlockers, capacity);
+        blockers = Arrays.copyOf(blockers, capacity);
+        blockerCounts = Arrays.copyOf(blockerCounts, capacity);
+        dependents = Arrays.copyOf(dependents, capacity);
+        dependentCounts = Arrays.copyOf(dependentCounts, capacity);
+        ranks = Arrays.copyOf(ranks, capacity);
+        Arrays.fill(ranks, oldCapacity, capacity, UNRANKED);
+        marks = Arrays.copyOf(marks, capacity);
+    }
+
+    private static int append(int[][] lists, int[] counts, int slot, int value) {
+        int[] list = lists[slot];
+        int count = counts[slot];
+        if (list == null) {
+            list = new int[2];
+        } else if (count == list.length) {
+            list = Arrays.copyOf(list, count * 2);
+        }
+        list[count] = value;
+        lists[slot] = list;
+        return count + 1;
+    }
+
+    private static void removeFrom(int[][] lists, int[] counts, int slot, int value) {
+        int position = indexOf(lists[slot], counts[slot], value);
+        if (position >= 0) {
+            // Order within the list does not matter, so the last entry fills the gap
+            lists[slot][position] = lists[slot][--counts[slot]];
+        }
+    }
+
+    private static int indexOf(int[] list, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event emitted for every {@link JsonTaskManager} load and save.
+ */
+@Name("powertaskmanager.TaskFile")
+@Label("Task File I/O")
+@Category("Power Task Manager")
+@Description("Loading or saving a task file")
+class TaskFileEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Tasks")
+    int tasks;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,42 @@
+/**
+ * Receives notifications about changes made through a {@link TaskManager}.
+ * All methods have empty default implementations, so listeners only override
+ * the events they are interested in.
+ */
+public interface TaskListener {
+
+    /**
+     * Called after a task has been added to the manager.
+     *
+     * @param task The newly created task
+     */
+    default void onTaskCreated(Task task) {
+    }
+
+    /**
+     * Called after a task has been updated through the manager.
+     *
+     * @param task The task with its new values
+     */
+    default void onTaskUpdated(Task task) {
+    }
+
+    /**
+     * Called after a task has been removed from the manager.
+     *
+     * @param task The removed task
+     */
+    default void onTaskDeleted(Task task) {
+    }
+
+    /**
+     * Called after a task has been moved out of memory to the cold tier by
+     * {@link TaskManager#tierColdTasks()}. The task still exists and can be found by its ID,
+     * but the manager no longer keeps this object; listeners should drop their references to
+     * it so that it can be garbage collected, and look the task up again when they need it.
+     *
+     * @param task The evicted task
+     */
+    default void onTaskEvicted(Task task) {
+    }
+}
@@ -1,24 +1,100 @@
+import java.io.IOException;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
  * Manages a collection of tasks and provides CRUD operations.
+ *
+ * <p>A task manager is not thread-safe. Threads that share one synchronize on it, as
+ * {@link ReplicationFollower} does; the update methods take that monitor themselves, so
+ * concurrent {@link #compareAndUpdate} calls never interleave their writes.</p>
  */
 public class TaskManager {
-    private final List<Task> tasks;
+    // Passed to applyFields for updates that do not check the version
+    private static final long ANY_VERSION = -1;
+
+    private final ArrayList<Task> tasks;
+    private Map<Integer, Task> tasksById;
+    private final List<TaskListener> listeners;
+    private int nextId;
+    // Built on the first getSnapshot call; after that only the IDs changed since the last call are kept
+    private PersistentTaskMap snapshot;
+    private Set<Integer> snapshotChanges;
+    // IDs of unsaved changes that no heap task can carry a dirty flag for (deletions and
+    // evictions of dirty tasks); null until a SegmentedTaskStore starts tracking changes
+    private Set<Integer> unsavedIds;
+    private TaskQueryEngine queryEngine;
+    private TrigramIndex trigramIndex;
+    private TaskAggregates aggregates;
+    private TaskDependencyGraph dependencyGraph;
+    private volatile long generation;
+    private ColdTaskStore coldStore;
+    private TieringPolicy tieringPolicy;
+    private Clock clock;
+    private long lastTieringMillis;
+    private LazyTaskStore lazyStore;
+    // Index positions of the tasks in the lazy store that have not been read yet
+    private BitSet lazyPending;
 
     /**
      * Creates a new TaskManager with an empty task list.
      */
     public TaskManager() {
         this.tasks = new ArrayList<>();
+        this.tasksById = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.nextId = 1;
+        this.clock = Clock.systemDefaultZone();
+    }
+
+    /**
+     * Policies for tasks whose ID is already taken when importing.
+     */
+    public enum MergePolicy {
+        /** Overwrite the existing task with the imported values. */
+        REPLACE,
+        /** Keep the existing task and drop the imported one. */
+        SKIP,
+        /** Add the imported task under a new ID. */
+        RENUMBER
+    }
+
+    /**
+     * Registers a listener that is notified about every create, update and delete.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a previously added listener.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
     }
 
     /**
      * Creates a new task and adds it to the task list.
+     * IDs are handed out from this manager's own ID space, starting at 1.
      *
      * @param title       The title of the task
      * @param description The detailed description of the task
@@ -27,18 +103,336 @@ public class TaskManager {
      * @return The newly created task
      */
     public Task createTask(String title, String description, LocalDateTime deadline, Task.Priority priority) {
-        Task task = new Task(title, description, deadline, priority);
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.CREATE_TASK);
+        Task task = new Task(nextId++, title, description, deadline, priority);
         tasks.add(task);
+        tasksById.put(task.getId(), task);
+        fireTaskCreated(task);
+        tierIfDue();
+        probe.end(1);
         return task;
     }
 
+    /**
+     * Creates a new task with an explicit ID and adds it to the task list.
+     * Used when tasks are copied from another store and must keep their IDs.
+     * Later IDs handed out by {@link #createTask(String, String, LocalDateTime, Task.Priority)}
+     * continue after the highest ID seen.
+     *
+     * @param id          The ID of the task
+     * @param title       The title of the task
+     * @param description The detailed description of the task
+     * @param deadline    The deadline for the task
+     * @param priority    The priority level of the task
+     * @return The newly created task, or null if a task with this ID already exists
+     */
+    public Task createTask(int id, String title, String description, LocalDateTime deadline, Task.Priority priority) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.CREATE_TASK_WITH_ID);
+        if (findTask(id) != null || isStored(id)) {
+            probe.end(0);
+            return null;
+        }
+
+        Task task = new Task(id, title, description, deadline, priority);
+        if (id >= nextId) {
+            nextId = id + 1;
+        }
+        tasks.add(task);
+        tasksById.put(id, task);
+        fireTaskCreated(task);
+        tierIfDue();
+        probe.end(1);
+        return task;
+    }
+
+    /**
+     * Adds many tasks at once, keeping their IDs.
+     * Storage is sized for the whole batch up front, the tasks are added in a single pass
+     * without being copied, and the ID counter moves past the highest imported ID.
+     * Tasks whose ID is already taken (or repeated within the batch) are handled by the policy.
+     * Tasks without an ID (0, as read from an object that has none) are numbered like renumbered ones.
+     * The blocker IDs stored in the tasks refer to the IDs of the batch: a blocker that is renumbered
+     * is followed to its new ID, and dependencies between tasks of the batch are added once the
+     * whole batch is in, whatever the order of the tasks.
+     *
+     * @param imported The tasks to add, for example as returned by {@link JsonTaskManager#loadTasks(String)}
+     * @param policy   What to do with tasks whose ID is already taken
+     * @return The number of tasks added or replaced
+     */
+    public int importTasks(List<Task> imported, MergePolicy policy) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.IMPORT_TASKS);
+        tasks.ensureCapacity(tasks.size() + imported.size());
+        if (tasksById.size() < imported.size()) {
+            // A HashMap cannot be resized in place, so rebuild it once at the final capacity
+            Map<Integer, Task> presized = new HashMap<>((int) ((tasksById.size() + imported.size()) / 0.75f) + 1);
+            presized.putAll(tasksById);
+            tasksById = presized;
+        }
+
+        int maxId = nextId - 1;
+        for (Task task : imported) {
+            maxId = Math.max(maxId, task.getId());
+        }
+
+        int count = 0;
+        List<Task> added = new ArrayList<>();
+        List<Task> replaced = new ArrayList<>();
+        List<Task> renumbered = new ArrayList<>();
+        Set<Integer> keptIds = new HashSet<>();
+        for (Task task : imported) {
+            if (task.getId() <= 0) {
+                renumbered.add(task);
+                continue;
+            }
+            Task existing = findTask(task.getId());
+            if (existing == null && isStored(task.getId())) {
+                // Only REPLACE needs the stored task in the heap; otherwise it is enough that the ID is taken
+                existing = policy == MergePolicy.REPLACE ? resolveTask(task.getId()) : task;
+            }
+            if (existing == null) {
+                tasks.add(task);
+                tasksById.put(task.getId(), task);
+                added.add(task);
+                if (policy == MergePolicy.RENUMBER) {
+                    keptIds.add(task.getId());
+                }
+                count++;
+            } else if (policy == MergePolicy.REPLACE) {
+                applyFields(existing, ANY_VERSION, task.getTitle(), task.getDescription(), task.getDeadline(),
+                        task.getPriority(), task.getStatus());
+                if (!Arrays.equals(existing.getBlockerIds(), task.getBlockerIds())) {
+                    existing.incrementVersion();
+                    existing.setBlockerIds(task.getBlockerIds());
+                    fireTaskUpdated(existing);
+                }
+                replaced.add(existing);
+                count++;
+            } else if (policy == MergePolicy.RENUMBER) {
+                renumbered.add(task);
+            }
+        }
+
+        // Renumbered tasks get IDs after every imported one, so they cannot collide again
+        nextId = maxId + 1;
+        Map<Integer, Integer> newIds = new HashMap<>();
+        for (Task task : renumbered) {
+            Task copy = new Task(nextId++, task.getTitle(), task.getDescription(), task.getDeadline(),
+                    task.getPriority());
+            copy.setStatus(task.getStatus());
+            copy.setBlockerIds(task.getBlockerIds());
+            // An ID that an imported task kept still means that task; no blocker refers to a missing ID
+            if (task.getId() > 0 && !keptIds.contains(task.getId())) {
+                newIds.putIfAbsent(task.getId(), copy.getId());
+            }
+            tasks.add(copy);
+            tasksById.put(copy.getId(), copy);
+            added.add(copy);
+            count++;
+        }
+
+        for (Task task : added) {
+            if (!newIds.isEmpty()) {
+                int[] blockerIds = task.getBlockerIds();
+                for (int i = 0; i < blockerIds.length; i++) {
+                    blockerIds[i] = newIds.getOrDefault(blockerIds[i], blockerIds[i]);
+                }
+                task.setBlockerIds(blockerIds);
+            }
+            fireTaskCreated(task);
+        }
+        // A task's blockers may have come after it in the batch, so the graph looks at them again
+        if (dependencyGraph != null) {
+            for (Task task : added) {
+                dependencyGraph.syncBlockers(task);
+            }
+            for (Task task : replaced) {
+                dependencyGraph.syncBlockers(task);
+            }
+        }
+
+        tierIfDue();
+        probe.end(count);
+        return count;
+    }
+
     /**
      * Returns all tasks in the task list.
+     * With tiering enabled this includes the cold tasks, read from disk as copies
+     * that stay cold; changing such a copy does not change the stored task.
+     * Tasks not yet read from a lazy store are read first.
      *
      * @return A list of all tasks
      */
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.GET_ALL_TASKS);
+        loadAllLazy();
+        List<Task> result = new ArrayList<>(tasks);
+        if (coldStore != null) {
+            result.addAll(coldStore.readAll());
+        }
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Returns an immutable snapshot of all tasks as of the last completed mutation.
+     * Later mutations never change a snapshot, so it can be handed to any thread and read
+     * there without locking.
+     * <p>
+     * Nothing is maintained until the first call, which builds the snapshot from all heap tasks.
+     * After that, mutations only note the IDs they touch, and the next call copies just those
+     * tasks into a new snapshot that shares the rest of its structure with the previous one,
+     * so its cost depends on the number of changes rather than the number of tasks.
+     * Changes made directly through the setters of {@link Task} are not reflected,
+     * and neither are cold tasks or tasks of a lazy store that have not been read yet.
+     *
+     * @return The current snapshot of the tasks
+     */
+    public PersistentTaskMap getSnapshot() {
+        if (snapshot == null) {
+            PersistentTaskMap built = PersistentTaskMap.empty();
+            for (Task task : tasks) {
+                built = built.put(TaskRecord.of(task));
+            }
+            snapshot = built;
+            snapshotChanges = new HashSet<>();
+        } else if (!snapshotChanges.isEmpty()) {
+            PersistentTaskMap updated = snapshot;
+            for (int id : snapshotChanges) {
+                Task task = findTask(id);
+                updated = task != null ? updated.put(TaskRecord.of(task)) : updated.remove(id);
+            }
+            snapshot = updated;
+            snapshotChanges.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the total number of tasks: those in the heap, the cold ones and the ones
+     * not yet read from a lazy store.
+     *
+     * @return The number of tasks
+     */
+    public int getTaskCount() {
+        return tasks.size() + getColdTaskCount() + getUnloadedTaskCount();
+    }
+
+    /**
+     * Returns the mutation generation. It starts at 0 and grows by one with every create,
+     * update and delete, so two equal generations mean that nothing changed in between.
+     *
+     * @return The current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the IDs of the tasks created, updated or deleted since they were last saved
+     * by {@link SegmentedTaskStore}.
+     * Created and updated tasks are found by their {@link Task#isDirty()} flag, so changes made
+     * directly through the setters of {@link Task} count as well; this checks every task in the heap.
+     * Deletions (and dirty tasks moved to the cold tier) are only remembered once a store has
+     * started tracking this task manager, and stay in this set until they are saved.
+     *
+     * @return The changed IDs
+     */
+    public Set<Integer> getChangedIds() {
+        Set<Integer> result = unsavedIds != null ? new HashSet<>(unsavedIds) : new HashSet<>();
+        for (Task task : tasks) {
+            if (task.isDirty()) {
+                result.add(task.getId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Starts remembering deletions and evictions for {@link #getChangedIds()}.
+     * Called by {@link SegmentedTaskStore} when it first saves or loads this task manager;
+     * until then there is nothing to save incrementally against, so nothing is kept.
+     */
+    void trackChanges() {
+        if (unsavedIds == null) {
+            unsavedIds = new HashSet<>();
+        }
+    }
+
+    /**
+     * Forgets the changes of the specified tasks after they were saved and clears their dirty flags.
+     *
+     * @param ids The IDs of the saved tasks
+     */
+    void markSaved(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            if (unsavedIds != null) {
+                unsavedIds.remove(id);
+            }
+            Task task = findTask(id);
+            if (task != null) {
+                task.clearDirty();
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose IDs fall in a range, in ascending ID order, including cold tasks
+     * and tasks not yet read from a lazy store.
+     * The cost depends on the size of the range, not on the number of tasks.
+     *
+     * @param fromId The first ID of the range
+     * @param toId   The last ID of the range (inclusive)
+     * @return The tasks in the range
+     */
+    List<Task> getTasksInRange(int fromId, int toId) {
+        List<Task> result = new ArrayList<>();
+        for (int id = fromId; id <= toId; id++) {
+            Task task = findTask(id);
+            if (task == null && coldStore != null) {
+                task = coldStore.read(id);
+            }
+            if (task == null && isLazy(id)) {
+                task = lazyStore.readTaskAt(lazyStore.indexOf(id));
+            }
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns task counts by status, by priority and by both, and the number of open tasks that
+     * are overdue or due today. The counts are kept up to date on every change, so after the first
+     * call, which counts all tasks (including cold ones), this takes about constant time and
+     * is cheap enough to poll frequently. Tasks of a lazy store that have not been read yet are
+     * counted from its index records without reading them; their deadlines count to the second.
+     *
+     * @return The current statistics
+     */
+    public TaskStatistics getStatistics() {
+        if (aggregates == null) {
+            List<Task> counted = new ArrayList<>(tasks);
+            if (coldStore != null) {
+                counted.addAll(coldStore.readAll());
+            }
+            aggregates = new TaskAggregates(counted, () -> LocalDateTime.now(clock));
+            addLazyTasksTo(aggregates);
+            listeners.add(aggregates);
+        }
+        return aggregates.getStatistics();
+    }
+
+    /**
+     * Measures the heap taken by task titles and descriptions and how much the
+     * shared titles and compact descriptions save. This walks all tasks.
+     *
+     * @return The text storage report
+     */
+    public TextStorageReport getTextStorageReport() {
+        loadAllLazy();
+        return new TextStorageReport(tasks);
     }
 
     /**
@@ -48,10 +442,35 @@ public class TaskManager {
      * @return The task with the specified ID, or null if not found
      */
     public Task getTaskById(int id) {
-        return tasks.stream()
-                .filter(task -> task.getId() == id)
-                .findFirst()
-                .orElse(null);
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.GET_TASK_BY_ID);
+        Task task = resolveTask(id);
+        if (task != null && tieringPolicy != null) {
+            task.touch(clock.millis());
+        }
+        probe.end(task != null ? 1 : 0);
+        return task;
+    }
+
+    /**
+     * Finds a task in memory or reads a copy of it from the cold tier, without moving it back into
+     * memory or recording metrics. Used by {@link DeadlineScheduler} for reminders of evicted tasks.
+     *
+     * @param id The ID of the task
+     * @return The task, or null if it is neither in memory nor in the cold tier
+     */
+    Task readTask(int id) {
+        Task task = findTask(id);
+        if (task == null && coldStore != null) {
+            task = coldStore.read(id);
+        }
+        return task;
+    }
+
+    /**
+     * Finds a task by its ID without recording metrics; used by the other operations.
+     */
+    private Task findTask(int id) {
+        return tasksById.get(id);
     }
 
     /**
@@ -63,20 +482,188 @@ public class TaskManager {
      * @param deadline    The new deadline
      * @param priority    The new priority
      * @param status      The new status
-     * @return true if the task was updated, false if the task was not found
+     * @return true if the task was updated (or already had these values), false if the task was not found
      */
-    public boolean updateTask(int id, String title, String description, LocalDateTime deadline, 
+    public synchronized boolean updateTask(int id, String title, String description, LocalDateTime deadline, 
                              Task.Priority priority, Task.Status status) {
-        Task task = getTaskById(id);
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.UPDATE_TASK);
+        Task task = resolveTask(id);
+        if (task == null) {
+            probe.end(0);
+            return false;
+        }
+
+        boolean changed = !Objects.equals(task.getTitle(), title)
+                || !Objects.equals(task.getDescription(), description)
+                || !Objects.equals(task.getDeadline(), deadline)
+                || task.getPriority() != priority
+                || task.getStatus() != status;
+        if (changed) {
+            task.incrementVersion();
+            task.setTitle(title);
+            task.setDescription(description);
+            task.setDeadline(deadline);
+            task.setPriority(priority);
+            task.setStatus(status);
+            fireTaskUpdated(task);
+            tierIfDue();
+        }
+        probe.end(changed ? 1 : 0);
+        return true;
+    }
+
+    /**
+     * Updates only the specified fields of an existing task.
+     *
+     * @param id          The ID of the task to update
+     * @param title       The new title (can be null to keep the current one)
+     * @param description The new description (can be null to keep the current one)
+     * @param deadline    The new deadline (can be null to keep the current one)
+     * @param priority    The new priority (can be null to keep the current one)
+     * @param status      The new status (can be null to keep the current one)
+     * @return true if the task was updated (or already had these values), false if the task was not found
+     */
+    public synchronized boolean updateTaskFields(int id, String title, String description, LocalDateTime deadline,
+                                    Task.Priority priority, Task.Status status) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.UPDATE_TASK_FIELDS);
+        Task task = resolveTask(id);
         if (task == null) {
+            probe.end(0);
+            return false;
+        }
+
+        boolean changed = applyFields(task, ANY_VERSION, title, description, deadline, priority, status);
+        tierIfDue();
+        probe.end(changed ? 1 : 0);
+        return true;
+    }
+
+    /**
+     * Updates the specified fields of a task only if nobody has changed it since it was read.
+     * Callers read the task, remember {@link Task#getVersion()}, and pass it back here;
+     * if another update happened in between, nothing is changed and false is returned,
+     * so the caller can reload the task and retry instead of overwriting the other change.
+     * Only the version check is optimistic: the caller holds no lock between reading the task and
+     * calling this. The check, the field writes and the notification of the listeners run under
+     * the manager's monitor, like the other updates, so of several updates based on the same
+     * version exactly one wins and no one sees a half-applied update while holding the monitor.
+     * If the fields already have the requested values, nothing is changed and true is returned.
+     *
+     * @param id              The ID of the task to update
+     * @param expectedVersion The version the caller based its changes on
+     * @param title           The new title (can be null to keep the current one)
+     * @param description     The new description (can be null to keep the current one)
+     * @param deadline        The new deadline (can be null to keep the current one)
+     * @param priority        The new priority (can be null to keep the current one)
+     * @param status          The new status (can be null to keep the current one)
+     * @return true if the task was updated, false if it was not found or its version has changed
+     */
+    public synchronized boolean compareAndUpdate(int id, long expectedVersion, String title, String description,
+                                    LocalDateTime deadline, Task.Priority priority, Task.Status status) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.COMPARE_AND_UPDATE);
+        Task task = resolveTask(id);
+        if (task == null || task.getVersion() != expectedVersion) {
+            probe.end(0);
+            return false;
+        }
+
+        if (!hasChanges(task, title, description, deadline, priority, status)) {
+            probe.end(0);
+            return true;
+        }
+        if (!applyFields(task, expectedVersion, title, description, deadline, priority, status)) {
+            probe.end(0);
+            return false;
+        }
+        tierIfDue();
+        probe.end(1);
+        return true;
+    }
+
+    /**
+     * Returns whether setting the non-null fields would change the task.
+     */
+    private boolean hasChanges(Task task, String title, String description, LocalDateTime deadline,
+                               Task.Priority priority, Task.Status status) {
+        return (title != null && !title.equals(task.getTitle()))
+                || (description != null && !description.equals(task.getDescription()))
+                || (deadline != null && !deadline.equals(task.getDeadline()))
+                || (priority != null && priority != task.getPriority())
+                || (status != null && status != task.getStatus());
+    }
+
+    /**
+     * Sets the non-null fields on a task, bumps its version and notifies the listeners.
+     * Unless {@code expectedVersion} is {@link #ANY_VERSION}, nothing happens if the task has
+     * another version. Nothing happens either if the fields already have these values.
+     * Callers hold the manager's monitor.
+     *
+     * @return true if the task was changed, false if nothing changed or the version did not match
+     */
+    private boolean applyFields(Task task, long expectedVersion, String title, String description,
+                                LocalDateTime deadline, Task.Priority priority, Task.Status status) {
+        if (!hasChanges(task, title, description, deadline, priority, status)) {
+            return false;
+        }
+        if (expectedVersion != ANY_VERSION && task.getVersion() != expectedVersion) {
             return false;
         }
+        task.incrementVersion();
+
+        if (title != null) {
+            task.setTitle(title);
+        }
+        if (description != null) {
+            task.setDescription(description);
+        }
+        if (deadline != null) {
+            task.setDeadline(deadline);
+        }
+        if (priority != null) {
+            task.setPriority(priority);
+        }
+        if (status != null) {
+            task.setStatus(status);
+        }
+        fireTaskUpdated(task);
+        return true;
+    }
 
-        task.setTitle(title);
-        task.setDescription(description);
-        task.setDeadline(deadline);
-        task.setPriority(priority);
-        task.setStatus(status);
+    /**
+     * Sets the state of a task replicated from another manager, including its version.
+     * Used by {@link MutationRecord} so that a follower's versions match the leader's.
+     *
+     * @param replica The replicated state of the task
+     * @param create  true to add the task as a new one, false to overwrite an existing one
+     * @return true if the state was applied, false if the ID was already taken (when creating)
+     *         or not found (when overwriting)
+     */
+    boolean applyReplica(Task replica, boolean create) {
+        Task task = resolveTask(replica.getId());
+        if (create) {
+            if (task != null) {
+                return false;
+            }
+            if (replica.getId() >= nextId) {
+                nextId = replica.getId() + 1;
+            }
+            tasks.add(replica);
+            tasksById.put(replica.getId(), replica);
+            fireTaskCreated(replica);
+        } else {
+            if (task == null) {
+                return false;
+            }
+            task.setTitle(replica.getTitle());
+            task.setDescription(replica.getDescription());
+            task.setDeadline(replica.getDeadline());
+            task.setPriority(replica.getPriority());
+            task.setStatus(replica.getStatus());
+            task.setBlockerIds(replica.getBlockerIds());
+            task.setVersion(replica.getVersion());
+            fireTaskUpdated(task);
+        }
+        tierIfDue();
         return true;
     }
 
@@ -87,7 +674,24 @@ public class TaskManager {
      * @return true if the task was deleted, false if the task was not found
      */
     public boolean deleteTask(int id) {
-        return tasks.removeIf(task -> task.getId() == id);
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.DELETE_TASK);
+        Task task = resolveTask(id);
+        if (task == null) {
+            probe.end(0);
+            return false;
+        }
+
+        int[] dependents = dependencyGraph != null ? dependencyGraph.getDependents(id) : new int[0];
+        tasks.remove(task);
+        tasksById.remove(id);
+        fireTaskDeleted(task);
+        // The tasks that waited for it no longer do, and their stored blockers have to say so
+        for (int dependent : dependents) {
+            storeBlockers(dependent);
+        }
+        tierIfDue();
+        probe.end(1);
+        return true;
     }
 
     /**
@@ -97,12 +701,47 @@ public class TaskManager {
      * @return A list of tasks matching the search criteria
      */
     public List<Task> searchTasks(String keyword) {
+        return searchTasks(keyword, false);
+    }
+
+    /**
+     * Searches for tasks containing the specified keyword in their title or description.
+     *
+     * @param keyword     The keyword to search for
+     * @param includeCold Whether to also search the tasks moved to disk by tiering, which is much slower
+     * @return A list of tasks matching the search criteria
+     */
+    public List<Task> searchTasks(String keyword, boolean includeCold) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.SEARCH_TASKS);
         String lowercaseKeyword = keyword.toLowerCase();
-        return tasks.stream()
+        List<Task> result = searchedTasks(includeCold).stream()
                 .filter(task -> 
                     task.getTitle().toLowerCase().contains(lowercaseKeyword) || 
                     task.getDescription().toLowerCase().contains(lowercaseKeyword))
                 .collect(Collectors.toList());
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Searches for tasks whose title or description contains words similar to the words of a text,
+     * so that small typos still find the task. Results are ranked by how well they match.
+     * The index behind the search is built on the first call and kept up to date from then on.
+     *
+     * @param text  The text to search for
+     * @param limit The maximum number of results
+     * @return The best matching tasks, best match first
+     */
+    public List<Task> fuzzySearch(String text, int limit) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.FUZZY_SEARCH);
+        loadAllLazy();
+        if (trigramIndex == null) {
+            trigramIndex = new TrigramIndex(tasks, this::findTask);
+            listeners.add(trigramIndex);
+        }
+        List<Task> result = trigramIndex.search(text, limit);
+        probe.end(result.size());
+        return result;
     }
 
     /**
@@ -114,12 +753,218 @@ public class TaskManager {
      * @return A list of tasks matching the search criteria
      */
     public List<Task> searchTasksByFields(String title, Task.Status status, Task.Priority priority) {
-        return tasks.stream()
+        return searchTasksByFields(title, status, priority, false);
+    }
+
+    /**
+     * Searches for tasks by specific fields.
+     *
+     * @param title       The title to search for (can be null or empty to ignore this field)
+     * @param status      The status to search for (can be null to ignore this field)
+     * @param priority    The priority to search for (can be null to ignore this field)
+     * @param includeCold Whether to also search the tasks moved to disk by tiering, which is much slower
+     * @return A list of tasks matching the search criteria
+     */
+    public List<Task> searchTasksByFields(String title, Task.Status status, Task.Priority priority,
+                                          boolean includeCold) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.SEARCH_TASKS_BY_FIELDS);
+        List<Task> result = searchedTasks(includeCold).stream()
                 .filter(task -> 
                     (title == null || title.isEmpty() || task.getTitle().toLowerCase().contains(title.toLowerCase())) &&
                     (status == null || task.getStatus() == status) &&
                     (priority == null || task.getPriority() == priority))
                 .collect(Collectors.toList());
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Runs a query that can combine conditions on several fields, an order and a limit.
+     * The query is planned from statistics on the tasks so that it reads as few tasks as possible.
+     * The indexes behind the planner are built on the first query and kept up to date from then on.
+     *
+     * @param query The query to run
+     * @return The matching tasks, in the requested order (or in no particular order if none was requested)
+     */
+    public List<Task> query(TaskQuery query) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.QUERY);
+        loadLazyFor(query);
+        List<Task> result = getQueryEngine().execute(query).getResults();
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Runs a query and describes how it was planned and run, with the estimated and actual
+     * number of tasks at each step. Print the returned plan to see it.
+     *
+     * @param query The query to run
+     * @return The plan, which also holds the results
+     */
+    public QueryPlan explain(TaskQuery query) {
+        loadLazyFor(query);
+        return getQueryEngine().execute(query);
+    }
+
+    private TaskQueryEngine getQueryEngine() {
+        if (queryEngine == null) {
+            queryEngine = new TaskQueryEngine(tasks, this::findTask);
+            listeners.add(queryEngine);
+        }
+        return queryEngine;
+    }
+
+    /**
+     * Makes a task wait for another one. The dependency is refused if it would create a cycle.
+     * Dependencies are stored in the waiting task (see {@link Task#getBlockerIds()}), so they are
+     * saved, tiered and replicated with it like its other fields. Queries go through a graph that
+     * is built on first use and keeps a topological order up to date, so adding a dependency
+     * usually moves few or no tasks.
+     *
+     * @param taskId    The ID of the task that has to wait
+     * @param blockerId The ID of the task that must be done first
+     * @return true if the dependency was added, false if a task does not exist, the dependency
+     *         already exists or it would create a cycle
+     */
+    public synchronized boolean addDependency(int taskId, int blockerId) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.ADD_DEPENDENCY);
+        boolean added = getDependencyGraph().addDependency(taskId, blockerId);
+        if (added) {
+            storeBlockers(taskId);
+            tierIfDue();
+        }
+        probe.end(added ? 1 : 0);
+        return added;
+    }
+
+    /**
+     * Removes a dependency between two tasks.
+     *
+     * @param taskId    The ID of the task that waits
+     * @param blockerId The ID of the task it waits for
+     * @return true if the dependency was removed, false if it did not exist
+     */
+    public synchronized boolean removeDependency(int taskId, int blockerId) {
+        if (!getDependencyGraph().removeDependency(taskId, blockerId)) {
+            return false;
+        }
+        storeBlockers(taskId);
+        tierIfDue();
+        return true;
+    }
+
+    /**
+     * Copies a task's blockers from the graph into the task, as an update of the task, so that
+     * they are saved and replicated with it.
+     */
+    private void storeBlockers(int taskId) {
+        Task task = resolveTask(taskId);
+        if (task == null) {
+            return;
+        }
+        task.incrementVersion();
+        task.setBlockerIds(dependencyGraph.getBlockers(taskId));
+        fireTaskUpdated(task);
+    }
+
+    /**
+     * Returns the tasks a task waits for, done or not.
+     *
+     * @param id The ID of the task
+     * @return The blocking tasks
+     */
+    public List<Task> getBlockers(int id) {
+        return resolveTasks(getDependencyGraph().getBlockers(id));
+    }
+
+    /**
+     * Returns the tasks that wait for a task.
+     *
+     * @param id The ID of the task
+     * @return The waiting tasks
+     */
+    public List<Task> getDependents(int id) {
+        return resolveTasks(getDependencyGraph().getDependents(id));
+    }
+
+    /**
+     * Returns the tasks that can be started: those that are not done and whose blockers are all done,
+     * including tasks without dependencies. The set is kept up to date on every status change,
+     * so the cost is that of returning the tasks.
+     *
+     * @return The ready tasks in ascending ID order
+     */
+    public List<Task> getReadyTasks() {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.GET_READY_TASKS);
+        List<Task> result = resolveTasks(getDependencyGraph().getReadyIds());
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Returns the tasks that have dependencies, ordered so that every task comes after the tasks it waits for.
+     *
+     * @return The tasks in topological order
+     */
+    public List<Task> getTopologicalOrder() {
+        return resolveTasks(getDependencyGraph().getTopologicalOrder());
+    }
+
+    /**
+     * Returns the longest chain of unfinished tasks that have to be done one after the other before
+     * a task can start, ending with the task itself. Tasks have no duration, so the length of a
+     * chain is its number of tasks; deadlines play no part in choosing it.
+     *
+     * @param id The ID of the task
+     * @return The chain, starting with a task that is ready, or an empty list if the task does not exist
+     */
+    public List<Task> getCriticalPath(int id) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.GET_CRITICAL_PATH);
+        List<Task> result = resolveTasks(getDependencyGraph().getCriticalPath(id));
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Builds the dependency graph on first use. The edges are stored in the tasks, so the tasks
+     * still in a lazy store are read first.
+     */
+    private TaskDependencyGraph getDependencyGraph() {
+        if (dependencyGraph == null) {
+            loadAllLazy();
+            // Cold tasks only need their status and blockers, so their copies are not kept
+            List<Task> all = new ArrayList<>(tasks);
+            if (coldStore != null) {
+                all.addAll(coldStore.readAll());
+            }
+            dependencyGraph = new TaskDependencyGraph(all);
+            listeners.add(dependencyGraph);
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Counts the unread tasks of the lazy store in the statistics from the index alone.
+     */
+    private void addLazyTasksTo(TaskAggregates counts) {
+        if (lazyStore == null) {
+            return;
+        }
+        for (int position = lazyPending.nextSetBit(0); position >= 0; position = lazyPending.nextSetBit(position + 1)) {
+            counts.addRecord(lazyStore.getIdAt(position), lazyStore.getStatusAt(position),
+                    lazyStore.getPriorityAt(position), lazyStore.getDeadlineAt(position));
+        }
+    }
+
+    private List<Task> resolveTasks(int[] ids) {
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = resolveTask(id);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
     }
 
     /**
@@ -130,6 +975,23 @@ public class TaskManager {
      * @return A sorted list of tasks
      */
     public List<Task> sortTasks(String criteria, boolean ascending) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.SORT_TASKS);
+        loadAllLazy();
+        List<Task> result = tasks.stream()
+                .sorted(getComparator(criteria, ascending))
+                .collect(Collectors.toList());
+        probe.end(result.size());
+        return result;
+    }
+
+    /**
+     * Builds the comparator used by {@link #sortTasks(String, boolean)}.
+     *
+     * @param criteria The criteria to sort by (e.g., "deadline", "priority", "status")
+     * @param ascending Whether to sort in ascending order
+     * @return A comparator for the specified criteria
+     */
+    static Comparator<Task> getComparator(String criteria, boolean ascending) {
         Comparator<Task> comparator;
 
         switch (criteria.toLowerCase()) {
@@ -154,8 +1016,349 @@ public class TaskManager {
             comparator = comparator.reversed();
         }
 
-        return tasks.stream()
-                .sorted(comparator)
-                .collect(Collectors.toList());
+        return comparator;
+    }
+
+    /**
+     * Turns on hot/cold tiering. From now on, tasks that the policy considers cold are moved
+     * out of the heap to a file and reloaded on access. Everything that works with task IDs
+     * reloads them transparently; searches, sorts, queries, the snapshot and the indexes only
+     * cover the tasks in the heap, unless a search is asked to include cold tasks.
+     * The policy is applied at most once per check interval after a mutation.
+     *
+     * @param coldFilePath The file for the cold tasks; its previous content is discarded
+     * @param policy       The policy that decides which tasks are cold
+     * @return true if tiering was enabled, false if the file could not be created
+     */
+    public boolean enableTiering(String coldFilePath, TieringPolicy policy) {
+        if (coldStore != null) {
+            coldStore.close();
+        }
+        try {
+            coldStore = new ColdTaskStore(coldFilePath);
+        } catch (IOException e) {
+            System.err.println("Error creating cold task file: " + e.getMessage());
+            coldStore = null;
+            return false;
+        }
+        tieringPolicy = policy;
+        clock = policy.getClock();
+        lastTieringMillis = clock.millis();
+        for (Task task : tasks) {
+            task.touch(lastTieringMillis);
+        }
+        return true;
+    }
+
+    /**
+     * Applies the tiering policy now and moves all cold tasks to disk.
+     *
+     * @return The number of tasks moved, or 0 if tiering is not enabled
+     */
+    public int tierColdTasks() {
+        if (tieringPolicy == null) {
+            return 0;
+        }
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.TIER_COLD_TASKS);
+        loadAllLazy();
+        long now = clock.millis();
+        lastTieringMillis = now;
+        List<Task> cold = new ArrayList<>();
+        for (Task task : tasks) {
+            if (tieringPolicy.isCold(task, now)) {
+                cold.add(task);
+            }
+        }
+        if (cold.isEmpty() || !coldStore.write(cold)) {
+            probe.end(0);
+            return 0;
+        }
+
+        Set<Task> evicted = Collections.newSetFromMap(new IdentityHashMap<>());
+        evicted.addAll(cold);
+        tasks.removeIf(evicted::contains);
+        for (Task task : cold) {
+            tasksById.remove(task.getId());
+            noteSnapshotChange(task.getId());
+            if (unsavedIds != null && task.isDirty()) {
+                // The cold copy has no dirty flag, so keep the unsaved change by ID
+                unsavedIds.add(task.getId());
+            }
+        }
+        generation++;
+        for (Task task : cold) {
+            fireTaskEvicted(task);
+        }
+        probe.end(cold.size());
+        return cold.size();
+    }
+
+    /**
+     * Returns the number of tasks currently moved to disk.
+     *
+     * @return The number of cold tasks
+     */
+    public int getColdTaskCount() {
+        return coldStore != null ? coldStore.size() : 0;
+    }
+
+    /**
+     * Takes over the tasks of a file opened through its offset index, without reading them.
+     * Each task is parsed the first time it is accessed by ID. Queries on status, priority and
+     * deadline read only the matching tasks, and statistics are counted from the index; searches,
+     * sorts and other operations that need every task read all remaining tasks once. Tasks already in this manager take
+     * precedence over tasks of the store with the same ID.
+     *
+     * @param store The store to take the tasks from; it is closed once all its tasks were read
+     * @return The number of tasks left to read from the store
+     */
+    public int attachLazyStore(LazyTaskStore store) {
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.ATTACH_LAZY_STORE);
+        if (lazyStore != null) {
+            loadAllLazy();
+        }
+        lazyStore = store;
+        lazyPending = new BitSet(store.size());
+        lazyPending.set(0, store.size());
+        for (Task task : tasks) {
+            int position = store.indexOf(task.getId());
+            if (position >= 0) {
+                lazyPending.clear(position);
+            }
+        }
+        if (coldStore != null && coldStore.size() > 0) {
+            for (int position = lazyPending.nextSetBit(0); position >= 0; position = lazyPending.nextSetBit(position + 1)) {
+                if (coldStore.contains(store.getIdAt(position))) {
+                    lazyPending.clear(position);
+                }
+            }
+        }
+        if (store.size() > 0) {
+            nextId = Math.max(nextId, store.getIdAt(store.size() - 1) + 1);
+        }
+        if (aggregates != null) {
+            addLazyTasksTo(aggregates);
+        }
+
+        // The fuzzy index needs the text of every task and the dependency graph the blockers stored
+        // in them, so both are dropped here and rebuilt once all tasks were read
+        if (trigramIndex != null) {
+            listeners.remove(trigramIndex);
+            trigramIndex = null;
+        }
+        if (dependencyGraph != null) {
+            listeners.remove(dependencyGraph);
+            dependencyGraph = null;
+        }
+        generation++;
+
+        int pending = lazyPending.cardinality();
+        if (pending == 0) {
+            closeLazyStore();
+        }
+        probe.end(pending);
+        return pending;
+    }
+
+    /**
+     * Returns the number of tasks of the lazy store that have not been read yet.
+     *
+     * @return The number of unread tasks, or 0 if no lazy store is attached
+     */
+    public int getUnloadedTaskCount() {
+        return lazyStore != null ? lazyPending.cardinality() : 0;
+    }
+
+    private boolean isLazy(int id) {
+        if (lazyStore == null) {
+            return false;
+        }
+        int position = lazyStore.indexOf(id);
+        return position >= 0 && lazyPending.get(position);
+    }
+
+    /**
+     * Reads the task at a position of the lazy store into the heap.
+     */
+    private Task loadLazy(int position) {
+        lazyPending.clear(position);
+        Task task = lazyStore.readTaskAt(position);
+        if (task != null) {
+            addToHeap(task);
+        }
+        if (lazyPending.isEmpty()) {
+            closeLazyStore();
+        }
+        return task;
+    }
+
+    /**
+     * Reads all remaining tasks of the lazy store into the heap.
+     */
+    private void loadAllLazy() {
+        if (lazyStore == null) {
+            return;
+        }
+        TaskMetrics.OperationProbe probe = TaskMetrics.beginOperation(TaskMetrics.Operation.LOAD_ALL_LAZY);
+        int count = lazyPending.cardinality();
+        tasks.ensureCapacity(tasks.size() + count);
+        if (tasksById.size() < tasks.size() + count) {
+            Map<Integer, Task> presized = new HashMap<>((int) ((tasks.size() + count) / 0.75f) + 1);
+            presized.putAll(tasksById);
+            tasksById = presized;
+        }
+        for (int position = lazyPending.nextSetBit(0); position >= 0; position = lazyPending.nextSetBit(position + 1)) {
+            Task task = lazyStore.readTaskAt(position);
+            if (task != null) {
+                addToHeap(task);
+            }
+        }
+        closeLazyStore();
+        probe.end(count);
+    }
+
+    /**
+     * Reads the tasks of the lazy store that can match a query. Without a keyword the index records
+     * are enough to find them; a keyword needs the text, so all tasks are read.
+     */
+    private void loadLazyFor(TaskQuery query) {
+        if (lazyStore == null) {
+            return;
+        }
+        if (query.getKeyword() != null) {
+            loadAllLazy();
+            return;
+        }
+        int[] positions = lazyStore.findPositions(query.getStatuses(), query.getPriorities(),
+                query.getDeadlineFrom(), query.getDeadlineTo());
+        for (int position : positions) {
+            if (lazyStore == null) {
+                break;
+            }
+            if (lazyPending.get(position)) {
+                loadLazy(position);
+            }
+        }
+    }
+
+    private void closeLazyStore() {
+        lazyStore.close();
+        lazyStore = null;
+        lazyPending = null;
+    }
+
+    /**
+     * Finds a task by its ID, moving it into the heap if it is cold or not yet read from the lazy store.
+     */
+    private Task resolveTask(int id) {
+        Task task = findTask(id);
+        if (task != null) {
+            return task;
+        }
+        if (coldStore != null) {
+            task = coldStore.remove(id);
+            if (task != null) {
+                addToHeap(task);
+                return task;
+            }
+        }
+        if (isLazy(id)) {
+            return loadLazy(lazyStore.indexOf(id));
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a task exists outside the heap, in the cold store or the lazy store.
+     */
+    private boolean isStored(int id) {
+        return (coldStore != null && coldStore.contains(id)) || isLazy(id);
+    }
+
+    /**
+     * Adds a task that was read from disk unchanged. It is not a mutation, so listeners other than
+     * the indexes are not notified and the task does not count as changed.
+     */
+    private void addToHeap(Task task) {
+        task.clearDirty();
+        if (tieringPolicy != null) {
+            // A task just read from disk is in use; untouched, it would be cold again at the next check
+            task.touch(clock.millis());
+        }
+        tasks.add(task);
+        tasksById.put(task.getId(), task);
+        noteSnapshotChange(task.getId());
+        if (queryEngine != null) {
+            queryEngine.onTaskCreated(task);
+        }
+        if (trigramIndex != null) {
+            trigramIndex.onTaskCreated(task);
+        }
+        generation++;
+    }
+
+    /**
+     * Returns the tasks a search runs over: the heap, plus copies of the cold tasks if requested.
+     */
+    private List<Task> searchedTasks(boolean includeCold) {
+        loadAllLazy();
+        if (!includeCold || coldStore == null) {
+            return tasks;
+        }
+        List<Task> all = new ArrayList<>(tasks);
+        all.addAll(coldStore.readAll());
+        return all;
+    }
+
+    private void tierIfDue() {
+        if (tieringPolicy != null
+                && clock.millis() - lastTieringMillis >= tieringPolicy.getCheckInterval().toMillis()) {
+            tierColdTasks();
+        }
+    }
+
+    private void noteSnapshotChange(int id) {
+        if (snapshotChanges != null) {
+            snapshotChanges.add(id);
+        }
+    }
+
+    private void fireTaskCreated(Task task) {
+        if (tieringPolicy != null) {
+            task.touch(clock.millis());
+        }
+        noteSnapshotChange(task.getId());
+        generation++;
+        for (TaskListener listener : listeners) {
+            listener.onTaskCreated(task);
+        }
+    }
+
+    private void fireTaskUpdated(Task task) {
+        if (tieringPolicy != null) {
+            task.touch(clock.millis());
+        }
+        noteSnapshotChange(task.getId());
+        generation++;
+        for (TaskListener listener : listeners) {
+            listener.onTaskUpdated(task);
+        }
+    }
+
+    private void fireTaskEvicted(Task task) {
+        for (TaskListener listener : listeners) {
+            listener.onTaskEvicted(task);
+        }
+    }
+
+    private void fireTaskDeleted(Task task) {
+        noteSnapshotChange(task.getId());
+        if (unsavedIds != null) {
+            unsavedIds.add(task.getId());
+        }
+        generation++;
+        for (TaskListener listener : listeners) {
+            listener.onTaskDeleted(task);
+        }
     }
 }
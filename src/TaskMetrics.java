@@ -0,0 +1,210 @@
+import jdk.jfr.EventType;
+
+/**
+ * Instrumentation hooks for {@link TaskManager} and {@link JsonTaskManager}.
+ * Each hook records into the default {@link MetricsRegistry} when metrics are enabled
+ * and emits a JDK Flight Recorder event when a recording has the event switched on.
+ * When both are off, beginning a measurement allocates nothing and returns a shared no-op probe.
+ *
+ * <p>Metric names: {@code taskManager.<operation>} histograms for task operations,
+ * {@code json.loadTasks} and {@code json.saveTasks} histograms for file I/O, and the counters
+ * {@code json.bytesRead}, {@code json.bytesWritten}, {@code json.tasksParsed},
+ * {@code json.parseNanos} (time spent decoding and parsing, without reading the file),
+ * {@code json.parseFailures} and {@code json.ioFailures}.</p>
+ */
+public final class TaskMetrics {
+    private static final OperationProbe NO_OPERATION = new OperationProbe(null, null, 0);
+    private static final FileProbe NO_FILE = new FileProbe(null, null, 0);
+    private static final EventType OPERATION_EVENT = EventType.getEventType(TaskOperationEvent.class);
+    private static final EventType FILE_EVENT = EventType.getEventType(TaskFileEvent.class);
+
+    /**
+     * The measured task manager operations, with their metric names built once.
+     */
+    enum Operation {
+        CREATE_TASK("createTask"),
+        CREATE_TASK_WITH_ID("createTaskWithId"),
+        IMPORT_TASKS("importTasks"),
+        GET_ALL_TASKS("getAllTasks"),
+        GET_TASK_BY_ID("getTaskById"),
+        UPDATE_TASK("updateTask"),
+        UPDATE_TASK_FIELDS("updateTaskFields"),
+        COMPARE_AND_UPDATE("compareAndUpdate"),
+        DELETE_TASK("deleteTask"),
+        SEARCH_TASKS("searchTasks"),
+        FUZZY_SEARCH("fuzzySearch"),
+        SEARCH_TASKS_BY_FIELDS("searchTasksByFields"),
+        QUERY("query"),
+        ADD_DEPENDENCY("addDependency"),
+        GET_READY_TASKS("getReadyTasks"),
+        GET_CRITICAL_PATH("getCriticalPath"),
+        SORT_TASKS("sortTasks"),
+        TIER_COLD_TASKS("tierColdTasks"),
+        ATTACH_LAZY_STORE("attachLazyStore"),
+        LOAD_ALL_LAZY("loadAllLazy");
+
+        private final String operationName;
+        private final String metricName;
+
+        Operation(String operationName) {
+            this.operationName = operationName;
+            this.metricName = "taskManager." + operationName;
+        }
+    }
+
+    private TaskMetrics() {
+    }
+
+    /**
+     * Returns the average parse rate of all loads so far.
+     *
+     * @return Tasks parsed per second, or 0 if nothing has been loaded
+     */
+    public static double getTasksParsedPerSecond() {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        long nanos = registry.counter("json.parseNanos").sum();
+        return nanos == 0 ? 0 : registry.counter("json.tasksParsed").sum() * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * Starts measuring a task manager operation.
+     *
+     * @param operation The operation
+     * @return A probe to end when the operation finishes
+     */
+    static OperationProbe beginOperation(Operation operation) {
+        boolean recording = OPERATION_EVENT.isEnabled();
+        if (!recording && !MetricsRegistry.isEnabled()) {
+            return NO_OPERATION;
+        }
+        TaskOperationEvent event = null;
+        if (recording) {
+            event = new TaskOperationEvent();
+            event.begin();
+        }
+        return new OperationProbe(operation, event, System.nanoTime());
+    }
+
+    /**
+     * Starts measuring a task file load or save.
+     *
+     * @param operation The name of the operation, "loadTasks" or "saveTasks"
+     * @param path      The file being read or written
+     * @return A probe to end when the operation finishes
+     */
+    static FileProbe beginFile(String operation, String path) {
+        boolean recording = FILE_EVENT.isEnabled();
+        if (!recording && !MetricsRegistry.isEnabled()) {
+            return NO_FILE;
+        }
+        TaskFileEvent event = null;
+        if (recording) {
+            event = new TaskFileEvent();
+            event.begin();
+            event.path = path;
+        }
+        return new FileProbe(operation, event, System.nanoTime());
+    }
+
+    /**
+     * Records the parsing of loaded file content, after it was read.
+     *
+     * @param tasks The number of tasks parsed
+     * @param nanos The time spent decoding and parsing, in nanoseconds
+     */
+    static void recordParse(int tasks, long nanos) {
+        if (MetricsRegistry.isEnabled()) {
+            MetricsRegistry registry = MetricsRegistry.getDefault();
+            registry.counter("json.tasksParsed").add(tasks);
+            registry.counter("json.parseNanos").add(nanos);
+        }
+    }
+
+    /**
+     * Counts a task object that could not be parsed.
+     */
+    static void recordParseFailure() {
+        if (MetricsRegistry.isEnabled()) {
+            MetricsRegistry.getDefault().counter("json.parseFailures").increment();
+        }
+    }
+
+    /**
+     * An operation in progress.
+     */
+    static final class OperationProbe {
+        private final Operation operation;
+        private final TaskOperationEvent event;
+        private final long start;
+
+        private OperationProbe(Operation operation, TaskOperationEvent event, long start) {
+            this.operation = operation;
+            this.event = event;
+            this.start = start;
+        }
+
+        /**
+         * Finishes the measurement.
+         *
+         * @param resultCount The number of tasks returned or changed
+         */
+        void end(int resultCount) {
+            if (operation == null) {
+                return;
+            }
+            if (MetricsRegistry.isEnabled()) {
+                MetricsRegistry.getDefault().histogram(operation.metricName).record(System.nanoTime() - start);
+            }
+            if (event != null) {
+                event.operation = operation.operationName;
+                event.resultCount = resultCount;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * A file load or save in progress.
+     */
+    static final class FileProbe {
+        private final String operation;
+        private final TaskFileEvent event;
+        private final long start;
+
+        private FileProbe(String operation, TaskFileEvent event, long start) {
+            this.operation = operation;
+            this.event = event;
+            this.start = start;
+        }
+
+        /**
+         * Finishes the measurement.
+         *
+         * @param bytes   The number of bytes read or written
+         * @param tasks   The number of tasks loaded or saved
+         * @param success Whether the operation succeeded
+         */
+        void end(long bytes, int tasks, boolean success) {
+            if (operation == null) {
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (MetricsRegistry.isEnabled()) {
+                MetricsRegistry registry = MetricsRegistry.getDefault();
+                registry.histogram("json." + operation).record(elapsed);
+                boolean loading = operation.startsWith("load");
+                registry.counter(loading ? "json.bytesRead" : "json.bytesWritten").add(bytes);
+                if (!success) {
+                    registry.counter("json.ioFailures").increment();
+                }
+            }
+            if (event != null) {
+                event.operation = operation;
+                event.bytes = bytes;
+                event.tasks = tasks;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event emitted for every {@link TaskManager} operation.
+ */
+@Name("powertaskmanager.TaskOperation")
+@Label("Task Operation")
+@Category("Power Task Manager")
+@Description("A create, read, update, delete, search or sort on a TaskManager")
+class TaskOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Result Count")
+    @Description("Number of tasks returned or changed")
+    int resultCount;
+}
@@ -0,0 +1,201 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A composable query over tasks, run by {@link TaskManager#query(TaskQuery)}.
+ * Every condition is optional and all conditions that are set must match, for example:
+ *
+ * <pre>
+ * TaskQuery query = new TaskQuery()
+ *         .priority(Task.Priority.HIGH)
+ *         .keyword("звіт")
+ *         .deadlineBetween(monday, nextMonday)
+ *         .orderBy("deadline", true)
+ *         .limit(50);
+ * </pre>
+ *
+ * The setters return the query itself so calls can be chained.
+ */
+public class TaskQuery {
+    private String keyword;
+    private Set<Task.Status> statuses;
+    private Set<Task.Priority> priorities;
+    private LocalDateTime deadlineFrom;
+    private LocalDateTime deadlineTo;
+    private String orderBy;
+    private boolean ascending = true;
+    private int limit = -1;
+
+    /**
+     * Only matches tasks containing the keyword in their title or description, ignoring case.
+     *
+     * @param keyword The keyword to search for (null or empty to ignore this condition)
+     * @return This query
+     */
+    public TaskQuery keyword(String keyword) {
+        this.keyword = (keyword == null || keyword.isEmpty()) ? null : keyword.toLowerCase();
+        return this;
+    }
+
+    /**
+     * Only matches tasks with one of the specified statuses.
+     *
+     * @param statuses The allowed statuses
+     * @return This query
+     */
+    public TaskQuery status(Task.Status... statuses) {
+        this.statuses = statuses.length == 0 ? null : EnumSet.copyOf(Arrays.asList(statuses));
+        return this;
+    }
+
+    /**
+     * Only matches tasks with one of the specified priorities.
+     *
+     * @param priorities The allowed priorities
+     * @return This query
+     */
+    public TaskQuery priority(Task.Priority... priorities) {
+        this.priorities = priorities.length == 0 ? null : EnumSet.copyOf(Arrays.asList(priorities));
+        return this;
+    }
+
+    /**
+     * Only matches tasks whose deadline is in the specified range.
+     *
+     * @param from The earliest deadline, inclusive (can be null for no lower bound)
+     * @param to   The latest deadline, exclusive (can be null for no upper bound)
+     * @return This query
+     */
+    public TaskQuery deadlineBetween(LocalDateTime from, LocalDateTime to) {
+        this.deadlineFrom = from;
+        this.deadlineTo = to;
+        return this;
+    }
+
+    /**
+     * Sorts the results. Tasks that compare equal are ordered by ID.
+     *
+     * @param criteria  The criteria to sort by ("deadline", "priority", "status", "title" or "id")
+     * @param ascending Whether to sort in ascending order
+     * @return This query
+     */
+    public TaskQuery orderBy(String criteria, boolean ascending) {
+        this.orderBy = criteria == null ? null : criteria.toLowerCase();
+        this.ascending = ascending;
+        return this;
+    }
+
+    /**
+     * Returns at most the specified number of tasks.
+     *
+     * @param limit The maximum number of results (negative for no limit)
+     * @return This query
+     */
+    public TaskQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public Set<Task.Status> getStatuses() {
+        return statuses;
+    }
+
+    public Set<Task.Priority> getPriorities() {
+        return priorities;
+    }
+
+    public LocalDateTime getDeadlineFrom() {
+        return deadlineFrom;
+    }
+
+    public LocalDateTime getDeadlineTo() {
+        return deadlineTo;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Checks whether the query has a deadline condition.
+     *
+     * @return true if a lower or upper deadline bound is set
+     */
+    boolean hasDeadlineRange() {
+        return deadlineFrom != null || deadlineTo != null;
+    }
+
+    /**
+     * Checks whether a task satisfies all conditions of the query.
+     * The cheap conditions are checked first and the keyword last.
+     *
+     * @param task The task to check
+     * @return true if the task matches
+     */
+    boolean matches(Task task) {
+        if (statuses != null && !statuses.contains(task.getStatus())) {
+            return false;
+        }
+        if (priorities != null && !priorities.contains(task.getPriority())) {
+            return false;
+        }
+        if (!matchesDeadline(task.getDeadline())) {
+            return false;
+        }
+        return keyword == null
+                || task.getTitle().toLowerCase().contains(keyword)
+                || task.getDescription().toLowerCase().contains(keyword);
+    }
+
+    /**
+     * Checks whether a deadline lies in the range of the query.
+     *
+     * @param deadline The deadline to check
+     * @return true if there is no deadline condition or the deadline is in the range;
+     *         a missing deadline is in no range
+     */
+    boolean matchesDeadline(LocalDateTime deadline) {
+        if (!hasDeadlineRange()) {
+            return true;
+        }
+        if (deadline == null || (deadlineFrom != null && deadline.isBefore(deadlineFrom))) {
+            return false;
+        }
+        return deadlineTo == null || deadline.isBefore(deadlineTo);
+    }
+
+    @Override
+    public String toString() {
+        List<String> conditions = new ArrayList<>();
+        if (statuses != null) {
+            conditions.add("status IN " + statuses);
+        }
+        if (priorities != null) {
+            conditions.add("priority IN " + priorities);
+        }
+        if (hasDeadlineRange()) {
+            conditions.add("deadline IN [" + (deadlineFrom != null ? deadlineFrom : "-∞") + ", "
+                    + (deadlineTo != null ? deadlineTo : "+∞") + ")");
+        }
+        if (keyword != null) {
+            conditions.add("keyword \"" + keyword + "\"");
+        }
+        return conditions.isEmpty() ? "all tasks" : String.join(" AND ", conditions);
+    }
+}
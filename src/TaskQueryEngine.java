@@ -0,0 +1,443 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Plans and runs {@link TaskQuery} objects for a {@link TaskManager}.
+ *
+ * <p>The engine keeps secondary indexes on status, priority and deadline, updated as a
+ * {@link TaskListener}, and uses them as statistics too: the exact number of tasks per
+ * status and priority, and the number of deadlines per day. The keyword selectivity is
+ * estimated from a sample of the tasks. Conditions are assumed to be independent.</p>
+ *
+ * <p>The planner picks the access path that is expected to check the fewest tasks.
+ * When the results are ordered by deadline and limited, walking the deadline index in order
+ * and stopping at the limit is considered too; other ordered, limited queries keep only the
+ * best {@code limit} tasks in a bounded heap instead of sorting every match.</p>
+ *
+ * <p>Status and priority indexes are bit sets over the dense slots of {@link TaskSlots}, and the
+ * deadline each task is indexed under is kept per slot, so their size follows the number of tasks
+ * and not the highest ID. Tasks without a deadline are not in the deadline index.</p>
+ */
+class TaskQueryEngine implements TaskListener {
+    private static final int KEYWORD_SAMPLE_SIZE = 512;
+
+    private final List<Task> tasks;
+    private final IntFunction<Task> lookup;
+    private final TaskSlots slots;
+    private final BitSet[] statusSlots;
+    private final BitSet[] prioritySlots;
+    private final int[] statusCounts;
+    private final int[] priorityCounts;
+    private final TreeMap<LocalDateTime, int[]> deadlineIds;
+    private final TreeMap<Long, Integer> deadlineDays;
+    private LocalDateTime[] indexedDeadlines;
+
+    /**
+     * Creates an engine and indexes the current tasks.
+     *
+     * @param tasks  The live task list of the task manager, used for full scans and sampling
+     * @param lookup Finds a task by its ID
+     */
+    TaskQueryEngine(List<Task> tasks, IntFunction<Task> lookup) {
+        this.tasks = tasks;
+        this.lookup = lookup;
+        this.slots = new TaskSlots();
+        this.statusSlots = new BitSet[Task.Status.values().length];
+        this.prioritySlots = new BitSet[Task.Priority.values().length];
+        this.statusCounts = new int[statusSlots.length];
+        this.priorityCounts = new int[prioritySlots.length];
+        for (int i = 0; i < statusSlots.length; i++) {
+            statusSlots[i] = new BitSet();
+        }
+        for (int i = 0; i < prioritySlots.length; i++) {
+            prioritySlots[i] = new BitSet();
+        }
+        this.deadlineIds = new TreeMap<>();
+        this.deadlineDays = new TreeMap<>();
+        this.indexedDeadlines = new LocalDateTime[16];
+        for (Task task : tasks) {
+            onTaskCreated(task);
+        }
+    }
+
+    @Override
+    public void onTaskCreated(Task task) {
+        if (slots.slotOf(task.getId()) >= 0) {
+            onTaskUpdated(task);
+            return;
+        }
+        int slot = slots.add(task.getId());
+        if (slot >= indexedDeadlines.length) {
+            indexedDeadlines = Arrays.copyOf(indexedDeadlines, Math.max(slot + 1, indexedDeadlines.length * 2));
+        }
+        statusSlots[task.getStatus().ordinal()].set(slot);
+        statusCounts[task.getStatus().ordinal()]++;
+        prioritySlots[task.getPriority().ordinal()].set(slot);
+        priorityCounts[task.getPriority().ordinal()]++;
+        addDeadline(slot, task.getId(), task.getDeadline());
+    }
+
+    @Override
+    public void onTaskUpdated(Task task) {
+        int id = task.getId();
+        int slot = slots.slotOf(id);
+        if (slot < 0) {
+            onTaskCreated(task);
+            return;
+        }
+        Task.Status status = task.getStatus();
+        if (!statusSlots[status.ordinal()].get(slot)) {
+            for (int i = 0; i < statusSlots.length; i++) {
+                if (statusSlots[i].get(slot)) {
+                    statusSlots[i].clear(slot);
+                    statusCounts[i]--;
+                }
+            }
+            statusSlots[status.ordinal()].set(slot);
+            statusCounts[status.ordinal()]++;
+        }
+
+        Task.Priority priority = task.getPriority();
+        if (!prioritySlots[priority.ordinal()].get(slot)) {
+            for (int i = 0; i < prioritySlots.length; i++) {
+                if (prioritySlots[i].get(slot)) {
+                    prioritySlots[i].clear(slot);
+                    priorityCounts[i]--;
+                }
+            }
+            prioritySlots[priority.ordinal()].set(slot);
+            priorityCounts[priority.ordinal()]++;
+        }
+
+        if (!Objects.equals(task.getDeadline(), indexedDeadlines[slot])) {
+            removeDeadline(slot, id);
+            addDeadline(slot, id, task.getDeadline());
+        }
+    }
+
+    @Override
+    public void onTaskEvicted(Task task) {
+        // The indexes cover the tasks in memory; a cold task is indexed again when it is read back
+        onTaskDeleted(task);
+    }
+
+    @Override
+    public void onTaskDeleted(Task task) {
+        int id = task.getId();
+        int slot = slots.slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        for (int i = 0; i < statusSlots.length; i++) {
+            if (statusSlots[i].get(slot)) {
+                statusSlots[i].clear(slot);
+                statusCounts[i]--;
+            }
+        }
+        for (int i = 0; i < prioritySlots.length; i++) {
+            if (prioritySlots[i].get(slot)) {
+                prioritySlots[i].clear(slot);
+                priorityCounts[i]--;
+            }
+        }
+        removeDeadline(slot, id);
+        slots.remove(id);
+    }
+
+    /**
+     * Plans and runs a query.
+     *
+     * @param query The query to run
+     * @return The chosen plan with the estimated and actual row counts and the results
+     */
+    QueryPlan execute(TaskQuery query) {
+        long start = System.nanoTime();
+        int size = tasks.size();
+        double statusRows = query.getStatuses() == null ? size : countOf(query.getStatuses(), statusCounts);
+        double priorityRows = query.getPriorities() == null ? size : countOf(query.getPriorities(), priorityCounts);
+        double deadlineRows = estimateDeadlineRows(query);
+        double keywordSelectivity = estimateKeywordSelectivity(query.getKeyword());
+        double otherSelectivity = selectivity(statusRows, size) * selectivity(priorityRows, size) * keywordSelectivity;
+        long estimatedMatched = Math.round(deadlineRows * otherSelectivity);
+
+        // Choose the access path that is expected to check the fewest tasks
+        QueryPlan.AccessPath accessPath = QueryPlan.AccessPath.FULL_SCAN;
+        double cost = size;
+        if (query.getStatuses() != null && statusRows < cost) {
+            accessPath = QueryPlan.AccessPath.STATUS_INDEX;
+            cost = statusRows;
+        }
+        if (query.getPriorities() != null && priorityRows < cost) {
+            accessPath = QueryPlan.AccessPath.PRIORITY_INDEX;
+            cost = priorityRows;
+        }
+        if (query.hasDeadlineRange() && deadlineRows < cost) {
+            accessPath = QueryPlan.AccessPath.DEADLINE_RANGE;
+            cost = deadlineRows;
+        }
+        boolean orderedByDeadline = "deadline".equals(query.getOrderBy());
+        if (orderedByDeadline && query.getLimit() >= 0) {
+            // Reading in deadline order stops after about limit / selectivity tasks
+            double orderedCost = otherSelectivity > 0
+                    ? Math.min(deadlineRows, query.getLimit() / otherSelectivity) : deadlineRows;
+            if (orderedCost <= cost) {
+                accessPath = QueryPlan.AccessPath.DEADLINE_ORDER;
+                cost = orderedCost;
+            }
+        }
+
+        boolean deadlinePath = accessPath == QueryPlan.AccessPath.DEADLINE_RANGE
+                || accessPath == QueryPlan.AccessPath.DEADLINE_ORDER;
+        QueryPlan.SortStrategy sortStrategy;
+        if (query.getOrderBy() == null) {
+            sortStrategy = QueryPlan.SortStrategy.NONE;
+        } else if (orderedByDeadline && deadlinePath) {
+            sortStrategy = QueryPlan.SortStrategy.INDEX_ORDER;
+        } else if (query.getLimit() >= 0) {
+            sortStrategy = QueryPlan.SortStrategy.TOP_K;
+        } else {
+            sortStrategy = QueryPlan.SortStrategy.FULL_SORT;
+        }
+
+        Execution execution = new Execution(query, sortStrategy);
+        if (query.getLimit() != 0) {
+            scan(accessPath, query, execution);
+        }
+        List<Task> results = execution.results();
+        return new QueryPlan(query, accessPath, sortStrategy, Math.round(cost), estimatedMatched,
+                execution.scanned, execution.matched, System.nanoTime() - start, results);
+    }
+
+    /**
+     * Feeds the candidate tasks of an access path to a visitor until it returns false.
+     */
+    private void scan(QueryPlan.AccessPath accessPath, TaskQuery query, Predicate<Task> visitor) {
+        switch (accessPath) {
+            case STATUS_INDEX:
+                for (Task.Status status : query.getStatuses()) {
+                    if (!scanSlots(statusSlots[status.ordinal()], visitor)) {
+                        return;
+                    }
+                }
+                break;
+            case PRIORITY_INDEX:
+                for (Task.Priority priority : query.getPriorities()) {
+                    if (!scanSlots(prioritySlots[priority.ordinal()], visitor)) {
+                        return;
+                    }
+                }
+                break;
+            case DEADLINE_RANGE:
+            case DEADLINE_ORDER:
+                NavigableMap<LocalDateTime, int[]> range = deadlineRange(query);
+                if ("deadline".equals(query.getOrderBy()) && !query.isAscending()) {
+                    range = range.descendingMap();
+                }
+                for (int[] ids : range.values()) {
+                    for (int id : ids) {
+                        if (!visitor.test(lookup.apply(id))) {
+                            return;
+                        }
+                    }
+                }
+                break;
+            default:
+                for (Task task : tasks) {
+                    if (!visitor.test(task)) {
+                        return;
+                    }
+                }
+                break;
+        }
+    }
+
+    private boolean scanSlots(BitSet taskSlots, Predicate<Task> visitor) {
+        for (int slot = taskSlots.nextSetBit(0); slot >= 0; slot = taskSlots.nextSetBit(slot + 1)) {
+            if (!visitor.test(lookup.apply(slots.idAt(slot)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private NavigableMap<LocalDateTime, int[]> deadlineRange(TaskQuery query) {
+        LocalDateTime from = query.getDeadlineFrom();
+        LocalDateTime to = query.getDeadlineTo();
+        if (from != null && to != null) {
+            return from.isBefore(to) ? deadlineIds.subMap(from, true, to, false) : Collections.emptyNavigableMap();
+        } else if (from != null) {
+            return deadlineIds.tailMap(from, true);
+        } else if (to != null) {
+            return deadlineIds.headMap(to, false);
+        }
+        return deadlineIds;
+    }
+
+    /**
+     * Estimates the number of tasks in the deadline range from the per-day counts.
+     * Days that are only partly in the range are counted in full.
+     */
+    private double estimateDeadlineRows(TaskQuery query) {
+        if (!query.hasDeadlineRange()) {
+            return tasks.size();
+        }
+        LocalDateTime from = query.getDeadlineFrom();
+        LocalDateTime to = query.getDeadlineTo();
+        long fromDay = from != null ? from.toLocalDate().toEpochDay() : Long.MIN_VALUE;
+        long toDay = to != null ? to.minusNanos(1).toLocalDate().toEpochDay() : Long.MAX_VALUE;
+        if (fromDay > toDay) {
+            return 0;
+        }
+        long rows = 0;
+        for (int count : deadlineDays.subMap(fromDay, true, toDay, true).values()) {
+            rows += count;
+        }
+        return rows;
+    }
+
+    /**
+     * Estimates the share of tasks containing the keyword from an evenly spread sample.
+     */
+    private double estimateKeywordSelectivity(String keyword) {
+        if (keyword == null || tasks.isEmpty()) {
+            return 1.0;
+        }
+        TaskQuery probe = new TaskQuery().keyword(keyword);
+        int step = Math.max(1, tasks.size() / KEYWORD_SAMPLE_SIZE);
+        int sampled = 0;
+        int matching = 0;
+        for (int i = 0; i < tasks.size(); i += step) {
+            sampled++;
+            if (probe.matches(tasks.get(i))) {
+                matching++;
+            }
+        }
+        // Never estimate zero: a keyword missing from the sample can still occur
+        return Math.max(matching, 0.5) / sampled;
+    }
+
+    private static <E extends Enum<E>> int countOf(Set<E> values, int[] counts) {
+        int count = 0;
+        for (E value : values) {
+            count += counts[value.ordinal()];
+        }
+        return count;
+    }
+
+    private static double selectivity(double rows, int size) {
+        return size == 0 ? 0 : rows / size;
+    }
+
+    private void addDeadline(int slot, int id, LocalDateTime deadline) {
+        if (deadline == null) {
+            return;
+        }
+        indexedDeadlines[slot] = deadline;
+
+        // IDs under one deadline are kept sorted so that ties come out in ID order
+        int[] ids = deadlineIds.get(deadline);
+        if (ids == null) {
+            deadlineIds.put(deadline, new int[]{id});
+        } else {
+            int position = -Arrays.binarySearch(ids, id) - 1;
+            int[] grown = new int[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, position);
+            grown[position] = id;
+            System.arraycopy(ids, position, grown, position + 1, ids.length - position);
+            deadlineIds.put(deadline, grown);
+        }
+        deadlineDays.merge(deadline.toLocalDate().toEpochDay(), 1, Integer::sum);
+    }
+
+    private void removeDeadline(int slot, int id) {
+        LocalDateTime deadline = indexedDeadlines[slot];
+        if (deadline == null) {
+            return;
+        }
+        indexedDeadlines[slot] = null;
+
+        int[] ids = deadlineIds.get(deadline);
+        int position = Arrays.binarySearch(ids, id);
+        if (ids.length == 1) {
+            deadlineIds.remove(deadline);
+        } else {
+            int[] shrunk = new int[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, position);
+            System.arraycopy(ids, position + 1, shrunk, position, ids.length - position - 1);
+            deadlineIds.put(deadline, shrunk);
+        }
+        long day = deadline.toLocalDate().toEpochDay();
+        deadlineDays.computeIfPresent(day, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Checks candidates against the query and collects the results with the chosen sort strategy.
+     */
+    private static final class Execution implements Predicate<Task> {
+        private final TaskQuery query;
+        private final QueryPlan.SortStrategy sortStrategy;
+        private final Comparator<Task> comparator;
+        private final List<Task> collected;
+        private final PriorityQueue<Task> best;
+        private long scanned;
+        private long matched;
+
+        Execution(TaskQuery query, QueryPlan.SortStrategy sortStrategy) {
+            this.query = query;
+            this.sortStrategy = sortStrategy;
+            this.comparator = query.getOrderBy() == null ? null
+                    : TaskManager.getComparator(query.getOrderBy(), query.isAscending())
+                            .thenComparing(Task::getId);
+            this.collected = new ArrayList<>();
+            // The heap keeps the worst of the best tasks on top, so it can be replaced cheaply
+            this.best = sortStrategy == QueryPlan.SortStrategy.TOP_K
+                    ? new PriorityQueue<>(Math.max(1, query.getLimit()), comparator.reversed()) : null;
+        }
+
+        @Override
+        public boolean test(Task task) {
+            scanned++;
+            if (!query.matches(task)) {
+                return true;
+            }
+            matched++;
+            if (best != null) {
+                if (best.size() < query.getLimit()) {
+                    best.add(task);
+                } else if (comparator.compare(task, best.peek()) < 0) {
+                    best.poll();
+                    best.add(task);
+                }
+                return true;
+            }
+            collected.add(task);
+            // Without a sort step the first matches are the results, so stop at the limit
+            return sortStrategy == QueryPlan.SortStrategy.FULL_SORT
+                    || query.getLimit() < 0 || collected.size() < query.getLimit();
+        }
+
+        List<Task> results() {
+            if (best != null) {
+                List<Task> results = new ArrayList<>(best);
+                results.sort(comparator);
+                return results;
+            }
+            if (sortStrategy == QueryPlan.SortStrategy.FULL_SORT) {
+                collected.sort(comparator);
+            }
+            return collected;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.time.LocalDateTime;
+
+/**
+ * An immutable copy of a task's state at one point in time.
+ * Records are what {@link TaskManager#getSnapshot()} hands out: they can be shared
+ * between threads freely and never change after they are created.
+ * A record made from a task shares the task's pooled title and its {@link CompactText}
+ * description bytes (which tasks replace rather than modify), so it costs little more than
+ * its own fields; the description is decoded when it is read.
+ */
+public final class TaskRecord {
+    private final int id;
+    private final String title;
+    private final byte[] description;
+    private final LocalDateTime deadline;
+    private final Task.Priority priority;
+    private final Task.Status status;
+    private final int[] blockerIds;
+    private final long version;
+
+    /**
+     * Creates a record with the specified values.
+     *
+     * @param id          The ID of the task
+     * @param title       The title of the task
+     * @param description The detailed description of the task
+     * @param deadline    The deadline for the task
+     * @param priority    The priority level of the task
+     * @param status      The status of the task
+     * @param version     The version of the task
+     */
+    public TaskRecord(int id, String title, String description, LocalDateTime deadline,
+                      Task.Priority priority, Task.Status status, long version) {
+        this(id, TextPool.titles().intern(title), CompactText.encode(description), deadline, priority, status,
+                new int[0], version);
+    }
+
+    private TaskRecord(int id, String title, byte[] description, LocalDateTime deadline,
+                       Task.Priority priority, Task.Status status, int[] blockerIds, long version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.deadline = deadline;
+        this.priority = priority;
+        this.status = status;
+        this.blockerIds = blockerIds;
+        this.version = version;
+    }
+
+    /**
+     * Captures the current state of a task.
+     *
+     * @param task The task to copy
+     * @return An immutable record with the task's values
+     */
+    public static TaskRecord of(Task task) {
+        return new TaskRecord(task.getId(), task.getTitle(), task.getCompactDescription(), task.getDeadline(),
+                task.getPriority(), task.getStatus(), task.getBlockerIds(), task.getVersion());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the description, decoded from its compact form on every call.
+     *
+     * @return The description
+     */
+    public String getDescription() {
+        return CompactText.decode(description);
+    }
+
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+
+    public Task.Priority getPriority() {
+        return priority;
+    }
+
+    public Task.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the IDs of the tasks the task waits for.
+     *
+     * @return A copy of the IDs
+     */
+    public int[] getBlockerIds() {
+        return blockerIds.clone();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Creates a mutable task with the values and version of this record.
+     *
+     * @return A new task with the same ID and values
+     */
+    public Task toTask() {
+        Task task = new Task(id, title, getDescription(), deadline, priority);
+        task.setStatus(status);
+        task.setBlockerIds(blockerIds);
+        task.setVersion(version);
+        return task;
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+/**
+ * Hands out dense slot numbers for task IDs, so that per-task data can be kept in arrays and
+ * bit sets sized by the number of tasks rather than by the highest ID. A single imported task
+ * with a huge ID then costs one slot, not an array that reaches up to its ID.
+ *
+ * <p>IDs are found in an open-addressing hash table with linear probing over primitive arrays.
+ * Slots of removed IDs are handed out again before new ones, so {@link #capacity()} stays close
+ * to the largest number of tasks held at once.</p>
+ */
+final class TaskSlots {
+    private static final int MIN_TABLE_SIZE = 16;
+
+    // keys[i] is an ID and values[i] its slot plus one; a value of 0 marks an empty entry
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int[] ids;
+    private int capacity;
+    private int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * Creates an empty slot table.
+     */
+    TaskSlots() {
+        this.keys = new int[MIN_TABLE_SIZE];
+        this.values = new int[MIN_TABLE_SIZE];
+        this.mask = MIN_TABLE_SIZE - 1;
+        this.ids = new int[MIN_TABLE_SIZE];
+        this.freeSlots = new int[MIN_TABLE_SIZE];
+    }
+
+    /**
+     * Returns the slot of an ID.
+     *
+     * @param id The task ID
+     * @return The slot, or -1 if the ID has none
+     */
+    int slotOf(int id) {
+        for (int i = hash(id) & mask; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return values[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of an ID, giving it one if it has none.
+     *
+     * @param id The task ID
+     * @return The slot
+     */
+    int add(int id) {
+        int i = hash(id) & mask;
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return values[i] - 1;
+            }
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = capacity++;
+            if (slot == ids.length) {
+                ids = Arrays.copyOf(ids, slot * 2);
+            }
+        }
+        ids[slot] = id;
+        keys[i] = id;
+        values[i] = slot + 1;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        return slot;
+    }
+
+    /**
+     * Takes the slot away from an ID, to be handed out again later.
+     *
+     * @param id The task ID
+     * @return The slot the ID had, or -1 if it had none
+     */
+    int remove(int id) {
+        int i = hash(id) & mask;
+        while (values[i] != 0 && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == 0) {
+            return -1;
+        }
+        int slot = values[i] - 1;
+        // Move later entries of the probe run back into the gap, so lookups never stop early
+        int gap = i;
+        for (int j = (i + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = 0;
+        size--;
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return slot;
+    }
+
+    /**
+     * Returns the ID a slot was last given to. Only meaningful for slots in use.
+     *
+     * @param slot The slot
+     * @return The task ID
+     */
+    int idAt(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * Returns the number of IDs that have a slot.
+     *
+     * @return The number of slots in use
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns one more than the highest slot ever handed out; every slot is below it.
+     *
+     * @return The number of slots per-slot arrays need room for
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    private void rehash(int tableSize) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        // Consecutive IDs would fill runs of the table; spreading them keeps probe runs short
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,113 @@
+import java.time.LocalDateTime;
+
+/**
+ * Task counts at one point in time, as returned by {@link TaskManager#getStatistics()}.
+ * Overdue and due-today counts only include tasks that are not done.
+ */
+public final class TaskStatistics {
+    private final int[][] counts;
+    private final int overdue;
+    private final int dueToday;
+    private final LocalDateTime computedAt;
+
+    TaskStatistics(int[][] counts, int overdue, int dueToday, LocalDateTime computedAt) {
+        this.counts = counts;
+        this.overdue = overdue;
+        this.dueToday = dueToday;
+        this.computedAt = computedAt;
+    }
+
+    /**
+     * Returns the number of all tasks.
+     *
+     * @return The total number of tasks
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int[] row : counts) {
+            for (int count : row) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of tasks with a status.
+     *
+     * @param status The status to count
+     * @return The number of tasks with the status
+     */
+    public int getCount(Task.Status status) {
+        int total = 0;
+        for (int count : counts[status.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of tasks with a priority.
+     *
+     * @param priority The priority to count
+     * @return The number of tasks with the priority
+     */
+    public int getCount(Task.Priority priority) {
+        int total = 0;
+        for (int[] row : counts) {
+            total += row[priority.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of tasks with both a status and a priority.
+     *
+     * @param status   The status to count
+     * @param priority The priority to count
+     * @return The number of tasks with the status and the priority
+     */
+    public int getCount(Task.Status status, Task.Priority priority) {
+        return counts[status.ordinal()][priority.ordinal()];
+    }
+
+    /**
+     * Returns the number of tasks that are not done and whose deadline has passed.
+     *
+     * @return The number of overdue tasks
+     */
+    public int getOverdue() {
+        return overdue;
+    }
+
+    /**
+     * Returns the number of tasks that are not done and whose deadline falls on the current day,
+     * whether or not it has already passed.
+     *
+     * @return The number of tasks due today
+     */
+    public int getDueToday() {
+        return dueToday;
+    }
+
+    /**
+     * Returns the time the overdue and due-today counts refer to.
+     *
+     * @return The time of the statistics
+     */
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("TaskStatistics[total=").append(getTotal());
+        for (Task.Status status : Task.Status.values()) {
+            text.append(", ").append(status).append('=').append(getCount(status));
+        }
+        for (Task.Priority priority : Task.Priority.values()) {
+            text.append(", ").append(priority).append('=').append(getCount(priority));
+        }
+        return text.append(", overdue=").append(overdue).append(", dueToday=").append(dueToday).append(']').toString();
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * A bounded pool of canonical strings, used to share one copy of repeated task titles.
+ * See {@link ValuePool} for how entries are kept and replaced.
+ */
+public class TextPool extends ValuePool<String> {
+    private static final TextPool TITLES = new TextPool(200_000);
+
+    /**
+     * Creates a pool that holds at most the specified number of strings, rounded up
+     * to a power of two.
+     *
+     * @param maxEntries The maximum number of pooled strings
+     */
+    public TextPool(int maxEntries) {
+        super(maxEntries);
+    }
+
+    /**
+     * Returns the pool used for task titles.
+     *
+     * @return The title pool
+     */
+    public static TextPool titles() {
+        return TITLES;
+    }
+}
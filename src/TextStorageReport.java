@@ -0,0 +1,96 @@
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estimates how much heap the task text takes and how much the compact storage saves,
+ * compared with every task holding its own title and description strings.
+ */
+public class TextStorageReport {
+    private final int taskCount;
+    private final int distinctTitles;
+    private final long titleBytes;
+    private final long titleBytesUnshared;
+    private final long descriptionBytes;
+    private final long descriptionBytesAsStrings;
+
+    /**
+     * Walks the tasks and measures their text.
+     *
+     * @param tasks The tasks to measure
+     */
+    public TextStorageReport(Collection<Task> tasks) {
+        Map<String, Boolean> seenTitles = new IdentityHashMap<>();
+        long shared = 0;
+        long unshared = 0;
+        long compact = 0;
+        long strings = 0;
+
+        for (Task task : tasks) {
+            String title = task.getTitle();
+            if (title != null) {
+                long size = CompactText.estimateStringSize(title);
+                unshared += size;
+                if (seenTitles.put(title, Boolean.TRUE) == null) {
+                    shared += size;
+                }
+            }
+            byte[] description = task.getCompactDescription();
+            if (description != null) {
+                compact += CompactText.estimateArraySize(description);
+                strings += CompactText.estimateStringSize(CompactText.decode(description));
+            }
+        }
+
+        this.taskCount = tasks.size();
+        this.distinctTitles = seenTitles.size();
+        this.titleBytes = shared;
+        this.titleBytesUnshared = unshared;
+        this.descriptionBytes = compact;
+        this.descriptionBytesAsStrings = strings;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public int getDistinctTitles() {
+        return distinctTitles;
+    }
+
+    /**
+     * Returns the heap taken by task text now.
+     *
+     * @return The estimated size in bytes
+     */
+    public long getRetainedBytes() {
+        return titleBytes + descriptionBytes;
+    }
+
+    /**
+     * Returns the heap the same text would take as one pair of strings per task.
+     *
+     * @return The estimated size in bytes
+     */
+    public long getUncompressedBytes() {
+        return titleBytesUnshared + descriptionBytesAsStrings;
+    }
+
+    /**
+     * Returns the heap saved by title sharing and compact descriptions.
+     *
+     * @return The estimated number of bytes saved
+     */
+    public long getSavedBytes() {
+        return getUncompressedBytes() - getRetainedBytes();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "tasks=%d distinctTitles=%d titles=%d/%d bytes descriptions=%d/%d bytes saved=%d bytes (%.1f%%)",
+                taskCount, distinctTitles, titleBytes, titleBytesUnshared, descriptionBytes, descriptionBytesAsStrings,
+                getSavedBytes(), getUncompressedBytes() == 0 ? 0 : 100.0 * getSavedBytes() / getUncompressedBytes());
+    }
+}
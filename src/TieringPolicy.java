@@ -0,0 +1,72 @@
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Decides which tasks {@link TaskManager} moves out of the heap to its cold on-disk store.
+ * A task is cold if it is done (when enabled) or has not been created, read or updated for
+ * longer than the idle threshold. The task manager applies the policy at most once per
+ * check interval, after a mutation, or whenever {@link TaskManager#tierColdTasks()} is called.
+ */
+public class TieringPolicy {
+    private static final Duration DEFAULT_CHECK_INTERVAL = Duration.ofMinutes(1);
+
+    private final boolean evictDone;
+    private final Duration idleThreshold;
+    private final Duration checkInterval;
+    private final Clock clock;
+
+    /**
+     * Creates a policy that is checked once a minute against the system clock.
+     *
+     * @param evictDone     Whether done tasks are cold regardless of when they were last used
+     * @param idleThreshold How long a task must go untouched to become cold (null to never evict idle tasks)
+     */
+    public TieringPolicy(boolean evictDone, Duration idleThreshold) {
+        this(evictDone, idleThreshold, DEFAULT_CHECK_INTERVAL, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a policy.
+     *
+     * @param evictDone     Whether done tasks are cold regardless of when they were last used
+     * @param idleThreshold How long a task must go untouched to become cold (null to never evict idle tasks)
+     * @param checkInterval The minimum time between two automatic applications of the policy
+     * @param clock         The clock used for access times
+     */
+    public TieringPolicy(boolean evictDone, Duration idleThreshold, Duration checkInterval, Clock clock) {
+        this.evictDone = evictDone;
+        this.idleThreshold = idleThreshold;
+        this.checkInterval = checkInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * Checks whether a task should move to the cold store.
+     *
+     * @param task      The task to check
+     * @param nowMillis The current time in epoch milliseconds
+     * @return true if the task is cold
+     */
+    public boolean isCold(Task task, long nowMillis) {
+        if (evictDone && task.getStatus() == Task.Status.DONE) {
+            return true;
+        }
+        return idleThreshold != null && nowMillis - task.getLastTouched() >= idleThreshold.toMillis();
+    }
+
+    public boolean isEvictDone() {
+        return evictDone;
+    }
+
+    public Duration getIdleThreshold() {
+        return idleThreshold;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+}
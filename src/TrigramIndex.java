@@ -0,0 +1,413 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+
+/**
+ * A typo-tolerant word index over task titles and descriptions, used by
+ * {@link TaskManager#fuzzySearch(String, int)}.
+ *
+ * <p>Every distinct word (token) gets an ID and a posting list of the tasks containing it. The
+ * trigrams of each token, padded with two boundary marks on each side, point back to the
+ * tokens, in separate lists per token length. A word of length {@code n} has {@code n + 2} such
+ * trigrams, and one edit changes at most three of them, so a token within edit distance
+ * {@code k} of a query word differs in length by at most {@code k} and shares at least
+ * {@code max(n, m) + 2 - 3k} trigrams with it. The double padding keeps that bound positive
+ * even for three-letter words, so every query is answered from the trigram lists instead of a
+ * scan of the vocabulary. A query word is matched against the vocabulary, not against the
+ * tasks, and the remaining candidates are verified with a Levenshtein distance that gives up as
+ * soon as the bound is exceeded. The similarity of a word is {@code 1 - distance / length}; a
+ * task scores the sum of the best similarity of each query word.</p>
+ *
+ * <p>Tasks are numbered by the dense slots of {@link TaskSlots}: posting lists hold slots, and the
+ * per-task arrays are indexed by slot, so they grow with the number of tasks and not with the
+ * highest task ID. The index is kept up to date as a {@link TaskListener}.</p>
+ */
+class TrigramIndex implements TaskListener {
+    private static final String PADDING = "\u0001\u0001";
+
+    private final IntFunction<Task> lookup;
+    private final TaskSlots slots;
+    private final Map<String, Integer> tokenIds;
+    private final List<String> tokens;
+    private final List<IntList> postings;
+    // Token IDs by trigram and token length, see trigramKey
+    private final Map<Long, IntList> trigramTokens;
+    private int[][] taskTokens;
+
+    // Scratch space reused between queries, indexed by token ID and task slot
+    private int[] sharedTrigrams;
+    private float[] scores;
+    private int[] lastWord;
+
+    /**
+     * Creates an index and adds the specified tasks.
+     *
+     * @param tasks  The tasks to index
+     * @param lookup Finds a task by its ID
+     */
+    TrigramIndex(List<Task> tasks, IntFunction<Task> lookup) {
+        this.lookup = lookup;
+        this.slots = new TaskSlots();
+        this.tokenIds = new HashMap<>();
+        this.tokens = new ArrayList<>();
+        this.postings = new ArrayList<>();
+        this.trigramTokens = new HashMap<>();
+        this.taskTokens = new int[16][];
+        this.sharedTrigrams = new int[16];
+        this.scores = new float[16];
+        this.lastWord = new int[16];
+        for (Task task : tasks) {
+            onTaskCreated(task);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskCreated(Task task) {
+        if (slots.slotOf(task.getId()) >= 0) {
+            onTaskUpdated(task);
+            return;
+        }
+        int slot = slots.add(task.getId());
+        int[] added = tokenize(task);
+        setTaskTokens(slot, added);
+        for (int token : added) {
+            postings.get(token).addSorted(slot);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskUpdated(Task task) {
+        int slot = slots.slotOf(task.getId());
+        if (slot < 0) {
+            onTaskCreated(task);
+            return;
+        }
+        int[] before = taskTokens[slot];
+        int[] after = tokenize(task);
+        if (Arrays.equals(before, after)) {
+            return;
+        }
+        // Both arrays are sorted, so the difference is found in one merge pass
+        int i = 0;
+        int j = 0;
+        while (i < before.length || j < after.length) {
+            if (j == after.length || (i < before.length && before[i] < after[j])) {
+                postings.get(before[i++]).removeSorted(slot);
+            } else if (i == before.length || after[j] < before[i]) {
+                postings.get(after[j++]).addSorted(slot);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        setTaskTokens(slot, after);
+    }
+
+    @Override
+    public void onTaskEvicted(Task task) {
+        // Only tasks in memory are searched; a cold task is indexed again when it is read back
+        onTaskDeleted(task);
+    }
+
+    @Override
+    public synchronized void onTaskDeleted(Task task) {
+        int slot = slots.remove(task.getId());
+        if (slot < 0) {
+            return;
+        }
+        for (int token : taskTokens[slot]) {
+            postings.get(token).removeSorted(slot);
+        }
+        taskTokens[slot] = null;
+    }
+
+    /**
+     * Finds the tasks that best match the words of a text, allowing typos.
+     *
+     * @param text  The text to search for
+     * @param limit The maximum number of results
+     * @return The matching tasks, best match first; equal scores are ordered by ID
+     */
+    synchronized List<Task> search(String text, int limit) {
+        List<String> words = splitWords(text);
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        IntList touched = new IntList();
+        for (int word = 0; word < words.size(); word++) {
+            List<TokenMatch> matches = matchTokens(words.get(word));
+            // Best tokens first, so the first time a task is seen for this word it gets its best similarity
+            matches.sort((a, b) -> Float.compare(b.similarity, a.similarity));
+            for (TokenMatch match : matches) {
+                IntList taskSlots = postings.get(match.token);
+                for (int k = 0; k < taskSlots.size; k++) {
+                    int slot = taskSlots.values[k];
+                    if (scores[slot] == 0) {
+                        touched.add(slot);
+                        lastWord[slot] = -1;
+                    }
+                    if (lastWord[slot] != word) {
+                        lastWord[slot] = word;
+                        scores[slot] += match.similarity;
+                    }
+                }
+            }
+        }
+
+        // Keep the best matches in a heap with the weakest one on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> {
+            int byScore = Float.compare(scores[a], scores[b]);
+            return byScore != 0 ? byScore : Integer.compare(slots.idAt(b), slots.idAt(a));
+        });
+        for (int k = 0; k < touched.size; k++) {
+            int slot = touched.values[k];
+            if (best.size() == limit) {
+                // Most tasks cannot beat the weakest kept match, so they are rejected without touching the heap
+                int weakest = best.peek();
+                if (scores[slot] < scores[weakest]
+                        || (scores[slot] == scores[weakest] && slots.idAt(slot) > slots.idAt(weakest))) {
+                    continue;
+                }
+                best.poll();
+            }
+            best.add(slot);
+        }
+        Task[] ranked = new Task[best.size()];
+        for (int k = ranked.length - 1; k >= 0; k--) {
+            ranked[k] = lookup.apply(slots.idAt(best.poll()));
+        }
+        for (int k = 0; k < touched.size; k++) {
+            scores[touched.values[k]] = 0;
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /**
+     * Finds the vocabulary tokens within the allowed edit distance of a query word.
+     *
+     * @return The matching tokens with their similarity
+     */
+    private List<TokenMatch> matchTokens(String word) {
+        int maxDistance = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+        List<TokenMatch> matches = new ArrayList<>();
+        long[] trigrams = trigrams(word);
+
+        if (sharedTrigrams.length < tokens.size()) {
+            sharedTrigrams = new int[Math.max(tokens.size(), sharedTrigrams.length * 2)];
+        }
+        IntList seen = new IntList();
+        // Only the lists of tokens with a length within the distance are read at all
+        int minLength = Math.max(1, word.length() - maxDistance);
+        for (int length = minLength; length <= word.length() + maxDistance; length++) {
+            for (long trigram : trigrams) {
+                IntList withTrigram = trigramTokens.get(trigramKey(trigram, length));
+                if (withTrigram == null) {
+                    continue;
+                }
+                for (int k = 0; k < withTrigram.size; k++) {
+                    int token = withTrigram.values[k];
+                    if (sharedTrigrams[token]++ == 0) {
+                        seen.add(token);
+                    }
+                }
+            }
+        }
+
+        for (int k = 0; k < seen.size; k++) {
+            int token = seen.values[k];
+            int shared = sharedTrigrams[token];
+            sharedTrigrams[token] = 0;
+            String candidate = tokens.get(token);
+            int required = Math.max(word.length(), candidate.length()) + 2 - 3 * maxDistance;
+            if (shared < required || postings.get(token).size == 0) {
+                continue;
+            }
+            int distance = boundedLevenshtein(word, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                float similarity = 1f - (float) distance / Math.max(word.length(), candidate.length());
+                matches.add(new TokenMatch(token, similarity));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Computes the Levenshtein distance, giving up once it must exceed the bound.
+     *
+     * @return The distance, or {@code maxDistance + 1} if it is larger than the bound
+     */
+    static int boundedLevenshtein(String a, String b, int maxDistance) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], maxDistance + 1);
+    }
+
+    /**
+     * Returns the sorted, distinct token IDs of a task's title and description,
+     * adding new words to the vocabulary.
+     */
+    private int[] tokenize(Task task) {
+        List<String> words = splitWords(task.getTitle());
+        words.addAll(splitWords(task.getDescription()));
+        IntList ids = new IntList();
+        for (String word : words) {
+            ids.add(tokenId(word));
+        }
+        int[] sorted = Arrays.copyOf(ids.values, ids.size);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int k = 0; k < sorted.length; k++) {
+            if (k == 0 || sorted[k] != sorted[k - 1]) {
+                sorted[distinct++] = sorted[k];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private int tokenId(String word) {
+        Integer id = tokenIds.get(word);
+        if (id != null) {
+            return id;
+        }
+        int token = tokens.size();
+        tokenIds.put(word, token);
+        tokens.add(word);
+        postings.add(new IntList());
+        for (long trigram : trigrams(word)) {
+            trigramTokens.computeIfAbsent(trigramKey(trigram, word.length()), key -> new IntList()).add(token);
+        }
+        return token;
+    }
+
+    private void setTaskTokens(int slot, int[] ids) {
+        if (slot >= taskTokens.length) {
+            int capacity = Math.max(slot + 1, taskTokens.length * 2);
+            taskTokens = Arrays.copyOf(taskTokens, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            lastWord = Arrays.copyOf(lastWord, capacity);
+        }
+        taskTokens[slot] = ids;
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits; apostrophes inside words are kept.
+     */
+    static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String lowercase = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lowercase.length(); i++) {
+            char c = i < lowercase.length() ? lowercase.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c)
+                    || (start >= 0 && (c == '\'' || c == '’' || c == 'ʼ'));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lowercase.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the trigrams of a word padded with two boundary marks on both sides, packed into longs.
+     */
+    private static long[] trigrams(String word) {
+        String padded = PADDING + word + PADDING;
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return trigrams;
+    }
+
+    /**
+     * Returns the key of the list of tokens of a length that contain a trigram.
+     * A trigram takes the low 48 bits; lengths beyond 16 bits share a list, which only costs pruning.
+     */
+    private static long trigramKey(long trigram, int length) {
+        return ((long) Math.min(length, 0xFFFF) << 48) | trigram;
+    }
+
+    /**
+     * A vocabulary token that matched a query word.
+     */
+    private static final class TokenMatch {
+        private final int token;
+        private final float similarity;
+
+        TokenMatch(int token, float similarity) {
+            this.token = token;
+            this.similarity = similarity;
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Inserts a value keeping the list sorted. New task slots usually go at the end.
+         */
+        void addSorted(int value) {
+            if (size == 0 || values[size - 1] < value) {
+                add(value);
+                return;
+            }
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            add(0);
+            System.arraycopy(values, position, values, position + 1, size - 1 - position);
+            values[position] = value;
+        }
+
+        void removeSorted(int value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0) {
+                System.arraycopy(values, position + 1, values, position, size - 1 - position);
+                size--;
+            }
+        }
+    }
+}
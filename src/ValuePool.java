@@ -0,0 +1,102 @@
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of canonical instances of an immutable value type, used to share one copy
+ * of values that many tasks repeat. Entries are weakly referenced, so a value that nothing
+ * uses any more can be collected.
+ * <p>
+ * The pool is a fixed two-way set-associative table and takes no locks, so task managers
+ * on different threads (for example the shards of {@link ShardedTaskManager}) do not
+ * serialize on it. When both slots for a value are taken by other live values, the
+ * older of the two is replaced; later copies of a displaced value are simply not shared
+ * with earlier ones.
+ *
+ * @param <T> The value type, which must be immutable and implement equals and hashCode
+ */
+public class ValuePool<T> {
+    private final AtomicReferenceArray<WeakReference<T>> slots;
+    private final int mask;
+    private final LongAdder lookups;
+    private final LongAdder hits;
+
+    /**
+     * Creates a pool that holds at most the specified number of values, rounded up
+     * to a power of two.
+     *
+     * @param maxEntries The maximum number of pooled values
+     */
+    public ValuePool(int maxEntries) {
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.lookups = new LongAdder();
+        this.hits = new LongAdder();
+    }
+
+    /**
+     * Returns the pooled copy of a value, adding it to the pool.
+     *
+     * @param value The value to look up (can be null)
+     * @return An equal value, shared with other callers when possible
+     */
+    public T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+
+        lookups.increment();
+        int hash = value.hashCode();
+        int first = (hash ^ (hash >>> 16)) & mask & ~1;
+        T pooled = get(first);
+        if (value.equals(pooled)) {
+            hits.increment();
+            return pooled;
+        }
+        T second = get(first + 1);
+        if (value.equals(second)) {
+            hits.increment();
+            return second;
+        }
+
+        // Keep the most recent value in the first slot and move the previous one down
+        WeakReference<T> reference = new WeakReference<>(value);
+        if (pooled != null) {
+            slots.setRelease(first + 1, slots.getAcquire(first));
+        }
+        slots.setRelease(first, reference);
+        return value;
+    }
+
+    private T get(int slot) {
+        WeakReference<T> reference = slots.getAcquire(slot);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Returns the number of values currently pooled. Counts every slot, so this is
+     * meant for reports rather than hot paths.
+     *
+     * @return The number of pooled values
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the share of lookups that found an existing copy.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long total = lookups.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+}
@@ -0,0 +1,159 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives {@link DeadlineScheduler} with a hand-moved clock and runs the callbacks on the calling
+ * thread, so every test sees exactly which reminders fire at which tick.
+ */
+class DeadlineSchedulerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    private MovableClock clock;
+    private List<String> fired;
+    private DeadlineScheduler scheduler;
+    private TaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MovableClock(START.toInstant(ZoneOffset.UTC));
+        fired = new ArrayList<>();
+        scheduler = new DeadlineScheduler((task, type) -> fired.add(task.getId() + ":" + type),
+                clock, Duration.ofSeconds(1), Duration.ofMinutes(10), Runnable::run);
+        taskManager = new TaskManager();
+    }
+
+    @Test
+    void firesDueAtTheLeadTimeAndOverdueAtTheDeadline() {
+        Task task = taskManager.createTask("Звіт", "", START.plusHours(1), Task.Priority.HIGH);
+        scheduler.watch(taskManager);
+
+        advanceTo(START.plusMinutes(50).minusSeconds(1));
+        assertEquals(List.of(), fired);
+        advanceTo(START.plusMinutes(50));
+        assertEquals(List.of(task.getId() + ":DUE"), fired);
+        advanceTo(START.plusHours(1).minusSeconds(1));
+        assertEquals(1, fired.size());
+        advanceTo(START.plusHours(1));
+        assertEquals(List.of(task.getId() + ":DUE", task.getId() + ":OVERDUE"), fired);
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    void cascadesDeadlinesFromEveryWheelLevelAndTheOverflow() {
+        // One second per tick and 64 slots per level: level 0 covers about a minute, level 1 about
+        // an hour, level 2 about three days and level 3 about half a year; the last one overflows
+        Duration[] offsets = {Duration.ofSeconds(30), Duration.ofMinutes(30), Duration.ofHours(30),
+                Duration.ofDays(60), Duration.ofDays(400)};
+        List<String> expected = new ArrayList<>();
+        for (Duration offset : offsets) {
+            Task task = taskManager.createTask("t", "", START.plus(offset), Task.Priority.LOW);
+            expected.add(task.getId() + ":OVERDUE");
+        }
+        scheduler.watch(taskManager);
+        fired.removeIf(reminder -> reminder.endsWith(":DUE"));
+
+        for (int i = 0; i < offsets.length; i++) {
+            advanceTo(START.plus(offsets[i]).minusSeconds(1));
+            fired.removeIf(reminder -> reminder.endsWith(":DUE"));
+            assertEquals(expected.subList(0, i), fired, "reminder " + i + " fired early");
+            advanceTo(START.plus(offsets[i]));
+            fired.removeIf(reminder -> reminder.endsWith(":DUE"));
+            assertEquals(expected.subList(0, i + 1), fired, "reminder " + i + " fired late");
+        }
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    void doesNotFireAgainWhenAnOverdueTaskIsEditedOrWatchedAgain() {
+        Task task = taskManager.createTask("Оплатити", "", START.minusDays(1), Task.Priority.LOW);
+        scheduler.watch(taskManager);
+        assertEquals(List.of(task.getId() + ":DUE", task.getId() + ":OVERDUE"), fired);
+
+        taskManager.updateTaskFields(task.getId(), "Оплатити рахунки", null, null, Task.Priority.HIGH, null);
+        taskManager.compareAndUpdate(task.getId(), task.getVersion(), null, "до вечора", null, null, null);
+        scheduler.watch(taskManager);
+        advanceTo(START.plusHours(1));
+        assertEquals(2, fired.size());
+
+        // A new deadline is a new reminder
+        taskManager.updateTaskFields(task.getId(), null, null, START.minusHours(1), null, null);
+        assertEquals(4, fired.size());
+    }
+
+    @Test
+    void forgetsFiredRemindersWhenTheTaskIsDoneOrDeleted() {
+        Task task = taskManager.createTask("Купити", "", START.plusMinutes(5), Task.Priority.LOW);
+        scheduler.watch(taskManager);
+        assertEquals(List.of(task.getId() + ":DUE"), fired);
+
+        taskManager.updateTaskFields(task.getId(), null, null, null, null, Task.Status.DONE);
+        advanceTo(START.plusMinutes(5));
+        assertEquals(1, fired.size());
+        assertEquals(0, scheduler.getPendingCount());
+
+        // Reopened, it is reminded again
+        taskManager.updateTaskFields(task.getId(), null, null, null, null, Task.Status.TODO);
+        assertEquals(3, fired.size());
+
+        taskManager.deleteTask(task.getId());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    void cancelledRemindersNeverFire() {
+        Task task = taskManager.createTask("Піти", "", START.plusHours(2), Task.Priority.LOW);
+        scheduler.watch(taskManager);
+        assertEquals(2, scheduler.getPendingCount());
+        taskManager.deleteTask(task.getId());
+        assertEquals(0, scheduler.getPendingCount());
+        advanceTo(START.plusDays(1));
+        assertTrue(fired.isEmpty());
+    }
+
+    private void advanceTo(LocalDateTime time) {
+        clock.set(time.toInstant(ZoneOffset.UTC));
+        scheduler.advance();
+    }
+
+    /**
+     * A UTC clock that only moves when the test sets it.
+     */
+    private static final class MovableClock extends Clock {
+        private Instant now;
+
+        MovableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}